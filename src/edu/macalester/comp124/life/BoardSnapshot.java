@@ -0,0 +1,134 @@
+package edu.macalester.comp124.life;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An unchanging view of one generation of a GameBoard.
+ *
+ * Snapshots are taken with GameBoard.snapshot() or GameBoard.latest().  They
+ * share their cells with the board rather than copying them, so taking one is
+ * cheap, but the board never modifies cells that a snapshot can see.  A
+ * snapshot may therefore be read from any thread while the board continues to
+ * run.  Once released, the snapshot's cells may be reused for a later
+ * generation, so it must not be read again.
+ */
+public class BoardSnapshot {
+
+    private Epoch epoch;
+    private boolean[][] cells;
+    private int width;
+    private int height;
+    private AtomicBoolean released = new AtomicBoolean();
+
+    /**
+     * Create a snapshot of an epoch, which the caller has already taken a
+     * reference to for it.
+     */
+    BoardSnapshot(Epoch epoch, int width, int height) {
+        this.epoch = epoch;
+        this.cells = epoch.cells;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Queries the board's width.
+     * @return The width of the game board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Queries the board's height.
+     * @return The height of the game board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Queries the generation the snapshot was taken at.
+     * @return The board's generation number
+     */
+    public long getGeneration() {
+        return epoch.generation;
+    }
+
+    /**
+     * Queries the rule set the board was using.
+     * @return The rule set
+     */
+    public RuleSet getRuleSet() {
+        return epoch.ruleSet;
+    }
+
+    /**
+     * Queries the neighborhood the board was using.
+     * @return The neighborhood
+     */
+    public Neighborhood getNeighborhood() {
+        return epoch.neighborhood;
+    }
+
+    /**
+     * Retrieve the value of a particular cell.
+     * @param x The X-coordinate of the cell.
+     * @param y The Y-coordinate of the cell.
+     * @return The cell's value
+     */
+    public boolean getCell(int x, int y) {
+        return cells[x][y];
+    }
+
+    /**
+     * Get a column of cells.  The array must not be modified.
+     * @param x The X-coordinate of the column.
+     * @return The cells of the column, indexed by y.
+     */
+    boolean[] column(int x) {
+        return cells[x];
+    }
+
+    /**
+     * Save the snapshot to a file in the same format as GameBoard.save().
+     * Since the snapshot never changes, this may run on another thread while
+     * the board keeps going.
+     * @param file The file to which to save the board
+     * @param listener Receives the number of rows written, or null.
+     * @throws InterruptedIOException If the thread is interrupted.
+     * @throws IOException If an error occurs
+     */
+    public void save(File file, ProgressListener listener) throws IOException {
+        GameBoard.writeCells(cells, width, height, file, listener);
+    }
+
+    /**
+     * Create a new, independent game board holding this snapshot's cells.
+     * @return The new board
+     */
+    public GameBoard toBoard() {
+        GameBoard b = new GameBoard(epoch.ruleSet, width, height);
+        b.setNeighborhood(epoch.neighborhood);
+        b.setGeneration(epoch.generation);
+        for (int x = 0; x < width; x++) {
+            b.setColumn(x, cells[x]);
+        }
+        return b;
+    }
+
+    /**
+     * Release the snapshot, letting the board reuse its cells once no other
+     * snapshot holds them.  Releasing a snapshot more than once does nothing.
+     * A snapshot that is never released is simply garbage collected, but the
+     * board then has to allocate a fresh buffer in its place.
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            epoch.release();
+        }
+    }
+}
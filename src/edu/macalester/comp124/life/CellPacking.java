@@ -0,0 +1,49 @@
+package edu.macalester.comp124.life;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Reads and writes runs of cells packed eight to a byte.
+ *
+ * Used wherever boards or parts of boards are sent over a connection or
+ * written to disk in bulk.
+ */
+final class CellPacking {
+
+    private CellPacking() {
+    }
+
+    /**
+     * Write an array of cells packed eight to a byte.
+     * @param out The stream to write to.
+     * @param cells The cells to write.
+     * @throws IOException If an error occurs.
+     */
+    static void writeBits(DataOutput out, boolean[] cells) throws IOException {
+        byte[] packed = new byte[(cells.length + 7) / 8];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i])
+                packed[i >> 3] |= 1 << (i & 7);
+        }
+        out.write(packed);
+    }
+
+    /**
+     * Read an array of cells written by writeBits.
+     * @param in The stream to read from.
+     * @param n The number of cells to read.
+     * @return The cells.
+     * @throws IOException If an error occurs.
+     */
+    static boolean[] readBits(DataInput in, int n) throws IOException {
+        byte[] packed = new byte[(n + 7) / 8];
+        in.readFully(packed);
+        boolean[] cells = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            cells[i] = (packed[i >> 3] & (1 << (i & 7))) != 0;
+        }
+        return cells;
+    }
+}
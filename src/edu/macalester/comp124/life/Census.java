@@ -0,0 +1,524 @@
+package edu.macalester.comp124.life;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts the objects on a board, such as the ash left when a soup has
+ * stabilized.
+ *
+ * An object is a set of living cells connected through their eight
+ * neighbors.  To find them, each column is broken into vertical runs of
+ * living cells, and runs in neighboring columns which touch are joined with
+ * a union-find structure.  The board is cut into strips of columns which are
+ * scanned and joined on separate threads; the few runs along the strip
+ * boundaries are joined afterwards.
+ *
+ * Each object is then looked up in a catalog which holds every phase of each
+ * known object in all eight rotations and reflections.  Objects which fit in
+ * an 8x8 box (nearly all ash) are keyed by a single long holding their cells
+ * and size, so most lookups need no canonical form at all.  Unknown objects
+ * are counted under a canonical code: "?", the width and height, and the
+ * cells in hexadecimal, row by row, for the orientation with the smallest
+ * code.  Objects with more than MAX_LARGE cells in their bounding box are
+ * counted together as "?large".
+ *
+ * Objects whose phases fall apart into separate pieces (such as the beacon
+ * or the lightweight spaceship) are counted as their pieces.
+ */
+public class Census {
+
+    /** The most cells in the bounding box of an object given its own code */
+    public static final int MAX_LARGE = 4096;
+    /** The name used for objects too large to classify */
+    public static final String LARGE = "?large";
+
+    private RuleSet ruleSet;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    /** Catalog entries for objects whose cells fit in a long */
+    private Map<Long, String> smallObjects = new HashMap<Long, String>();
+    /** Catalog entries for larger objects, keyed by code */
+    private Map<String, String> largeObjects = new HashMap<String, String>();
+
+    /**
+     * Create a census with an empty catalog.
+     * @param rules The rules objects added to the catalog evolve under.
+     */
+    public Census(RuleSet rules) {
+        ruleSet = rules;
+    }
+
+    /**
+     * Create a census of the common objects of Conway's Life.
+     * @return The census
+     */
+    public static Census standard() {
+        Census c = new Census(new Conway());
+        c.addObject("block", "OO/OO", 1);
+        c.addObject("beehive", ".OO./O..O/.OO.", 1);
+        c.addObject("loaf", ".OO./O..O/.O.O/..O.", 1);
+        c.addObject("boat", "OO./O.O/.O.", 1);
+        c.addObject("ship", "OO./O.O/.OO", 1);
+        c.addObject("tub", ".O./O.O/.O.", 1);
+        c.addObject("pond", ".OO./O..O/O..O/.OO.", 1);
+        c.addObject("long boat", "OO../O.O./.O.O/..O.", 1);
+        c.addObject("barge", ".O../O.O./.O.O/..O.", 1);
+        c.addObject("long barge", ".O.../O.O../.O.O./..O.O/...O.", 1);
+        c.addObject("mango", ".OO../O..O./.O..O/..OO.", 1);
+        c.addObject("aircraft carrier", "OO../O..O/..OO", 1);
+        c.addObject("eater 1", "OO../O.O./..O./..OO", 1);
+        c.addObject("snake", "OO.O/O.OO", 1);
+        c.addObject("blinker", "OOO", 2);
+        c.addObject("glider", ".O./..O/OOO", 4);
+        return c;
+    }
+
+    /**
+     * Set the number of threads to scan boards on.
+     * @param n The number of threads (defaults to the number of processors).
+     */
+    public void setThreads(int n) {
+        threads = n;
+    }
+
+    /**
+     * Add an object to the catalog.  Every phase of the object is added, in
+     * every orientation.
+     * @param name The name to count the object under.
+     * @param pattern One phase of the object, as rows separated by '/', with
+     *                'O' for living cells and '.' for dead ones.
+     * @param period The object's period: 1 for still lifes.
+     * @throws IllegalArgumentException If the pattern does not return to its
+     *         starting shape after the period.
+     */
+    public void addObject(String name, String pattern, int period) {
+        String[] rows = pattern.split("/");
+        int w = rows[0].length();
+        int h = rows.length;
+        int pad = period + 2;
+        GameBoard b = new GameBoard(ruleSet, w + 2 * pad, h + 2 * pad);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < rows[y].length(); x++) {
+                if (rows[y].charAt(x) == 'O')
+                    b.setCell(x + pad, y + pad, true);
+            }
+        }
+
+        String start = code(crop(b));
+        for (int g = 0; g < period; g++) {
+            boolean[][] phase = crop(b);
+            for (int t = 0; t < 8; t++) {
+                boolean[][] o = orient(phase, t);
+                long key = smallKey(o);
+                if (key != 0)
+                    smallObjects.put(key, name);
+                else
+                    largeObjects.put(code(o), name);
+            }
+            b.next();
+        }
+        if (!code(crop(b)).equals(start)) {
+            throw new IllegalArgumentException(String.format(
+                    "%s does not repeat with period %d", name, period));
+        }
+    }
+
+    /**
+     * Cut the living cells of a board out of it.
+     */
+    private static boolean[][] crop(GameBoard b) {
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = -1, y1 = -1;
+        for (int x = 0; x < b.getWidth(); x++) {
+            for (int y = 0; y < b.getHeight(); y++) {
+                if (b.getCell(x, y)) {
+                    x0 = Math.min(x0, x);
+                    x1 = Math.max(x1, x);
+                    y0 = Math.min(y0, y);
+                    y1 = Math.max(y1, y);
+                }
+            }
+        }
+        if (x1 < 0)
+            throw new IllegalArgumentException("Object has died out");
+        boolean[][] cells = new boolean[x1 - x0 + 1][y1 - y0 + 1];
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                cells[x - x0][y - y0] = b.getCell(x, y);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Count the objects on a board.
+     * @param board The board
+     * @return The number of objects of each kind, by name.
+     */
+    public Map<String, Integer> count(GameBoard board) {
+        BoardSnapshot snap = board.snapshot();
+        try {
+            return count(snap);
+        } finally {
+            snap.release();
+        }
+    }
+
+    /**
+     * Count the objects on a snapshot of a board.
+     * @param snap The snapshot
+     * @return The number of objects of each kind, by name.
+     */
+    public Map<String, Integer> count(final BoardSnapshot snap) {
+        int w = snap.getWidth();
+        int strips = Math.max(1, Math.min(threads, w));
+        final Runs[] parts = new Runs[strips];
+        Thread[] workers = new Thread[strips];
+        for (int s = 0; s < strips; s++) {
+            final Runs part = new Runs((int) ((long) w * s / strips),
+                    (int) ((long) w * (s + 1) / strips));
+            parts[s] = part;
+            workers[s] = new Thread("census-" + s) {
+                public void run() {
+                    part.scan(snap);
+                }
+            };
+            workers[s].start();
+        }
+        // the strips take little time, so finish them even if interrupted
+        boolean interrupted = false;
+        for (Thread t : workers) {
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        Runs all = Runs.concat(parts, w);
+        for (int s = 1; s < strips; s++) {
+            all.joinColumns(parts[s].x0 - 1, parts[s].x0);
+        }
+        return classify(all);
+    }
+
+    /**
+     * The vertical runs of living cells in a range of columns, and the
+     * union-find structure joining them into objects.
+     */
+    private static class Runs {
+        int x0;
+        int x1;
+        int n;
+        int[] x = new int[64];
+        int[] y0 = new int[64];
+        int[] y1 = new int[64];
+        int[] parent = new int[64];
+        /** The index of the first run of each column, relative to x0 */
+        int[] columnStart;
+
+        Runs(int x0, int x1) {
+            this.x0 = x0;
+            this.x1 = x1;
+            columnStart = new int[x1 - x0 + 1];
+        }
+
+        /**
+         * Find the runs of the columns and join those that touch.
+         */
+        void scan(BoardSnapshot snap) {
+            int h = snap.getHeight();
+            for (int cx = x0; cx < x1; cx++) {
+                boolean[] column = snap.column(cx);
+                int y = 0;
+                while (y < h) {
+                    if (!column[y]) {
+                        y++;
+                        continue;
+                    }
+                    int start = y;
+                    while (y < h && column[y]) {
+                        y++;
+                    }
+                    add(cx, start, y);
+                }
+                columnStart[cx - x0 + 1] = n;
+                if (cx > x0)
+                    joinColumns(cx - 1, cx);
+            }
+        }
+
+        private void add(int cx, int start, int end) {
+            if (n == x.length) {
+                int size = n * 2;
+                x = Arrays.copyOf(x, size);
+                y0 = Arrays.copyOf(y0, size);
+                y1 = Arrays.copyOf(y1, size);
+                parent = Arrays.copyOf(parent, size);
+            }
+            x[n] = cx;
+            y0[n] = start;
+            y1[n] = end;
+            parent[n] = n;
+            n++;
+        }
+
+        /**
+         * Join the runs of two neighboring columns which touch, including
+         * diagonally.  Both columns' runs are in order, so they are walked
+         * together like a merge.
+         */
+        void joinColumns(int a, int b) {
+            int i = columnStart[a - x0];
+            int iEnd = columnStart[a - x0 + 1];
+            int j = columnStart[b - x0];
+            int jEnd = columnStart[b - x0 + 1];
+            while (i < iEnd && j < jEnd) {
+                if (y0[i] <= y1[j] && y0[j] <= y1[i])
+                    union(i, j);
+                if (y1[i] < y1[j])
+                    i++;
+                else
+                    j++;
+            }
+        }
+
+        int find(int i) {
+            while (parent[i] != i) {
+                parent[i] = parent[parent[i]];
+                i = parent[i];
+            }
+            return i;
+        }
+
+        /**
+         * Join two sets.  The root is always the lowest index in its set,
+         * i.e. the leftmost run.
+         */
+        void union(int a, int b) {
+            int ra = find(a);
+            int rb = find(b);
+            if (ra < rb)
+                parent[rb] = ra;
+            else if (rb < ra)
+                parent[ra] = rb;
+        }
+
+        /**
+         * Put the runs of several strips together into one structure.
+         */
+        static Runs concat(Runs[] parts, int width) {
+            int total = 0;
+            for (Runs p : parts) {
+                total += p.n;
+            }
+            Runs all = new Runs(0, width);
+            all.n = total;
+            all.x = new int[total];
+            all.y0 = new int[total];
+            all.y1 = new int[total];
+            all.parent = new int[total];
+            int offset = 0;
+            for (Runs p : parts) {
+                System.arraycopy(p.x, 0, all.x, offset, p.n);
+                System.arraycopy(p.y0, 0, all.y0, offset, p.n);
+                System.arraycopy(p.y1, 0, all.y1, offset, p.n);
+                for (int i = 0; i < p.n; i++) {
+                    all.parent[offset + i] = p.parent[i] + offset;
+                }
+                for (int cx = p.x0; cx < p.x1; cx++) {
+                    all.columnStart[cx] = p.columnStart[cx - p.x0] + offset;
+                }
+                offset += p.n;
+            }
+            all.columnStart[width] = total;
+            return all;
+        }
+    }
+
+    /**
+     * Measure each object, look it up in the catalog and count it.
+     */
+    private Map<String, Integer> classify(Runs r) {
+        int n = r.n;
+        int[] minX = new int[n], maxX = new int[n], minY = new int[n], maxY = new int[n];
+        // roots are the lowest index in their set, so each is seen first
+        for (int i = 0; i < n; i++) {
+            int root = r.find(i);
+            r.parent[i] = root;
+            if (root == i) {
+                minX[i] = maxX[i] = r.x[i];
+                minY[i] = r.y0[i];
+                maxY[i] = r.y1[i] - 1;
+            } else {
+                maxX[root] = r.x[i];
+                minY[root] = Math.min(minY[root], r.y0[i]);
+                maxY[root] = Math.max(maxY[root], r.y1[i] - 1);
+            }
+        }
+
+        long[] keys = new long[n];
+        Map<Integer, boolean[][]> large = new HashMap<Integer, boolean[][]>();
+        for (int i = 0; i < n; i++) {
+            int root = r.parent[i];
+            int w = maxX[root] - minX[root] + 1;
+            int h = maxY[root] - minY[root] + 1;
+            int cx = r.x[i] - minX[root];
+            if (fitsKey(w, h)) {
+                for (int y = r.y0[i]; y < r.y1[i]; y++) {
+                    keys[root] |= 1L << ((y - minY[root]) * w + cx);
+                }
+            } else if ((long) w * h <= MAX_LARGE) {
+                boolean[][] cells = large.get(root);
+                if (cells == null) {
+                    cells = new boolean[w][h];
+                    large.put(root, cells);
+                }
+                for (int y = r.y0[i]; y < r.y1[i]; y++) {
+                    cells[cx][y - minY[root]] = true;
+                }
+            }
+        }
+
+        Map<String, Integer> counts = new TreeMap<String, Integer>();
+        Map<Long, String> unknown = new HashMap<Long, String>();
+        for (int i = 0; i < n; i++) {
+            if (r.parent[i] != i)
+                continue;
+            int w = maxX[i] - minX[i] + 1;
+            int h = maxY[i] - minY[i] + 1;
+            String name;
+            if (fitsKey(w, h)) {
+                long key = keys[i] | sizeBits(w, h);
+                name = smallObjects.get(key);
+                if (name == null) {
+                    name = unknown.get(key);
+                    if (name == null) {
+                        name = canonical(decode(key, w, h));
+                        unknown.put(key, name);
+                    }
+                }
+            } else if ((long) w * h <= MAX_LARGE) {
+                boolean[][] cells = large.get(i);
+                name = largeObjects.get(code(cells));
+                if (name == null)
+                    name = canonical(cells);
+            } else {
+                name = LARGE;
+            }
+            Integer c = counts.get(name);
+            counts.put(name, c == null ? 1 : c + 1);
+        }
+        return counts;
+    }
+
+    /**
+     * Check whether an object of a size can be keyed by a long: 58 bits of
+     * cells and three bits each for the width and height.
+     */
+    private static boolean fitsKey(int w, int h) {
+        return w <= 8 && h <= 8 && w * h <= 58;
+    }
+
+    private static long sizeBits(int w, int h) {
+        return (long) (w - 1) << 58 | (long) (h - 1) << 61;
+    }
+
+    /**
+     * Key an object's cells, or return 0 if they do not fit in a key.
+     */
+    private static long smallKey(boolean[][] cells) {
+        int w = cells.length;
+        int h = cells[0].length;
+        if (!fitsKey(w, h))
+            return 0;
+        long key = sizeBits(w, h);
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                if (cells[x][y])
+                    key |= 1L << (y * w + x);
+            }
+        }
+        return key;
+    }
+
+    private static boolean[][] decode(long key, int w, int h) {
+        boolean[][] cells = new boolean[w][h];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                cells[x][y] = (key & (1L << (y * w + x))) != 0;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Rotate and reflect an object.
+     * @param cells The object's cells, indexed [x][y].
+     * @param t The transformation: bit 0 flips x, bit 1 flips y, and bit 2
+     *          swaps x and y afterwards.
+     * @return The transformed cells.
+     */
+    static boolean[][] orient(boolean[][] cells, int t) {
+        int w = cells.length;
+        int h = cells[0].length;
+        boolean swap = (t & 4) != 0;
+        boolean[][] out = swap ? new boolean[h][w] : new boolean[w][h];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                int nx = (t & 1) != 0 ? w - 1 - x : x;
+                int ny = (t & 2) != 0 ? h - 1 - y : y;
+                if (swap)
+                    out[ny][nx] = cells[x][y];
+                else
+                    out[nx][ny] = cells[x][y];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Write the code of an object in one orientation: its size, then its
+     * cells in hexadecimal, row by row.
+     */
+    static String code(boolean[][] cells) {
+        int w = cells.length;
+        int h = cells[0].length;
+        StringBuilder sb = new StringBuilder();
+        sb.append(w).append('x').append(h).append(':');
+        int digit = 0;
+        int bits = 0;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                digit = digit << 1 | (cells[x][y] ? 1 : 0);
+                if (++bits == 4) {
+                    sb.append(Character.forDigit(digit, 16));
+                    digit = 0;
+                    bits = 0;
+                }
+            }
+        }
+        if (bits > 0)
+            sb.append(Character.forDigit(digit << (4 - bits), 16));
+        return sb.toString();
+    }
+
+    /**
+     * Find the name of an unknown object: "?" followed by the smallest code
+     * among its orientations.
+     */
+    static String canonical(boolean[][] cells) {
+        String best = null;
+        for (int t = 0; t < 8; t++) {
+            String c = code(orient(cells, t));
+            if (best == null || c.compareTo(best) < 0)
+                best = c;
+        }
+        return "?" + best;
+    }
+}
@@ -0,0 +1,362 @@
+package edu.macalester.comp124.life;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Periodically saves a running board so that a long run can be resumed after
+ * a crash.
+ *
+ * The stepping loop calls maybeCheckpoint() after each generation.  When a
+ * checkpoint is due, the board is snapshotted (which does not copy it) and
+ * the snapshot is written on a background thread, so the loop does not wait
+ * for the disk.  Each checkpoint is written to a temporary file, synced and
+ * then renamed into place, so a checkpoint file is either complete or absent;
+ * a checksum guards against anything else.  Only the newest few checkpoints
+ * are kept.
+ *
+ * Checkpoints record the generation number, the rule set (as its
+ * RuleDescription, so rules with parameters are recorded in full) and the
+ * neighborhood along with the cells, so resume() picks up exactly where the
+ * run stopped.
+ */
+public class Checkpointer {
+
+    private static final int MAGIC = 0x4c434b50;
+    private static final int VERSION = 2;
+    private static final String SUFFIX = ".ckpt";
+
+    private File directory;
+    private String name;
+    /** Matches the names of this run's checkpoint files and no others */
+    private Pattern fileName;
+    private int keep;
+    private int interval;
+    private long period;
+
+    /** The generation of the last checkpoint started, or of the first call */
+    private long lastGeneration = Long.MIN_VALUE;
+    /** The time the last checkpoint was started, from System.nanoTime() */
+    private long lastTime;
+
+    private ExecutorService writer;
+    /** The checkpoint being written, if any */
+    private Future<?> pending;
+
+    /**
+     * Create a checkpointer.  By default a checkpoint is due every 1000
+     * generations.
+     * @param directory The directory to hold the checkpoints.
+     * @param name The name of the run; checkpoint files start with it.
+     * @param keep How many checkpoints to keep.
+     */
+    public Checkpointer(File directory, String name, int keep) {
+        if (keep < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot keep %d checkpoints", keep));
+        }
+        this.directory = directory;
+        this.name = name;
+        fileName = Pattern.compile(Pattern.quote(name) + "-\\d{20}" + Pattern.quote(SUFFIX));
+        this.keep = keep;
+        interval = 1000;
+        lastTime = System.nanoTime();
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "checkpoint-writer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Set how many generations may pass between checkpoints.  A checkpoint
+     * is due each time the generation passes a multiple of the interval.
+     * @param generations The number of generations, or 0 for no limit.
+     */
+    public void setInterval(int generations) {
+        interval = generations;
+    }
+
+    /**
+     * Set how much time may pass between checkpoints.
+     * @param millis The time in milliseconds, or 0 for no limit.
+     */
+    public void setPeriod(long millis) {
+        period = millis;
+    }
+
+    /**
+     * Start a checkpoint of the board if one is due.  If the previous
+     * checkpoint is still being written, the new one is put off rather than
+     * making the caller wait.
+     * @param board The running board.
+     * @return true if a checkpoint was started.
+     * @throws IOException If the previous checkpoint could not be written.
+     */
+    public boolean maybeCheckpoint(GameBoard board) throws IOException {
+        long gen = board.getGeneration();
+        if (lastGeneration == Long.MIN_VALUE)
+            lastGeneration = gen;
+        // generation checkpoints fall on multiples of the interval, even if
+        // the board advances several generations between calls
+        boolean due = (interval > 0 && gen / interval > lastGeneration / interval)
+                || (period > 0 && System.nanoTime() - lastTime >= period * 1000000);
+        if (!due || !finished())
+            return false;
+        start(board.snapshot());
+        return true;
+    }
+
+    /**
+     * Start a checkpoint of the board now, waiting for any previous
+     * checkpoint to finish first.
+     * @param board The board.
+     * @throws IOException If the previous checkpoint could not be written.
+     */
+    public void checkpoint(GameBoard board) throws IOException {
+        flush();
+        start(board.snapshot());
+    }
+
+    /**
+     * Wait for the checkpoint being written, if any, to finish.
+     * @throws IOException If it could not be written.
+     */
+    public void flush() throws IOException {
+        if (pending == null)
+            return;
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for checkpoint");
+        } catch (ExecutionException e) {
+            throw new IOException("Checkpoint failed", e.getCause());
+        } finally {
+            if (pending.isDone())
+                pending = null;
+        }
+    }
+
+    /**
+     * Wait for any checkpoint being written and stop the writer thread.
+     * @throws IOException If the last checkpoint could not be written.
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    /**
+     * Check whether the last checkpoint has finished, reporting its failure.
+     */
+    private boolean finished() throws IOException {
+        if (pending == null)
+            return true;
+        if (!pending.isDone())
+            return false;
+        flush();
+        return true;
+    }
+
+    private void start(final BoardSnapshot snap) {
+        lastGeneration = snap.getGeneration();
+        lastTime = System.nanoTime();
+        pending = writer.submit(new Callable<Void>() {
+            public Void call() throws IOException {
+                File file = new File(directory,
+                        String.format("%s-%020d%s", name, snap.getGeneration(), SUFFIX));
+                try {
+                    write(snap, file);
+                } finally {
+                    snap.release();
+                }
+                prune();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * List the checkpoints of this run.  Only files named exactly as this
+     * run names them are listed, so runs whose names share a prefix can
+     * share a directory.
+     * @return The checkpoint files, newest first.
+     */
+    public File[] list() {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String n) {
+                return fileName.matcher(n).matches();
+            }
+        });
+        if (files == null)
+            return new File[0];
+        // the zero-padded generation makes names sort by age
+        Arrays.sort(files, Collections.reverseOrder());
+        return files;
+    }
+
+    /**
+     * Delete all but the newest checkpoints.
+     */
+    private void prune() {
+        File[] files = list();
+        for (int i = keep; i < files.length; i++) {
+            files[i].delete();
+        }
+    }
+
+    /**
+     * Load the newest usable checkpoint, creating its rule set from the
+     * recorded description.  A rule set of a class RuleDescription does not
+     * know can only be created if it has a public no-argument constructor.
+     * @return The board as checkpointed, or null if there is no usable
+     *         checkpoint.
+     * @throws IOException If the checkpoints cannot be read.
+     */
+    public GameBoard resume() throws IOException {
+        return resume(null);
+    }
+
+    /**
+     * Load the newest usable checkpoint.  Checkpoints which are damaged are
+     * skipped in favor of older ones.
+     * @param rules The rule set to run with, or null to create one from the
+     *              recorded description.  It must have the same description
+     *              as the rule set the checkpoint was written with.
+     * @return The board as checkpointed, or null if there is no usable
+     *         checkpoint.
+     * @throws IOException If the checkpoints cannot be read.
+     */
+    public GameBoard resume(RuleSet rules) throws IOException {
+        for (File f : list()) {
+            try {
+                GameBoard b = read(f, rules);
+                lastGeneration = b.getGeneration();
+                return b;
+            } catch (InvalidBoardException e) {
+                // damaged; fall back to an older checkpoint
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write a snapshot to a checkpoint file.
+     * @param snap The snapshot to write.
+     * @param file The file to write.
+     * @throws IOException If an error occurs.
+     */
+    static void write(BoardSnapshot snap, File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fs = new FileOutputStream(tmp);
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(fs), new CRC32());
+        DataOutputStream data = new DataOutputStream(checked);
+        boolean written = false;
+        try {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(snap.getGeneration());
+            data.writeUTF(RuleDescription.describe(snap.getRuleSet()));
+            data.writeUTF(snap.getRuleSet().getName());
+            data.writeUTF(snap.getNeighborhood().getType().name());
+            data.writeInt(snap.getNeighborhood().getRadius());
+            data.writeInt(snap.getWidth());
+            data.writeInt(snap.getHeight());
+            for (int x = 0; x < snap.getWidth(); x++) {
+                CellPacking.writeBits(data, snap.column(x));
+            }
+            data.writeLong(checked.getChecksum().getValue());
+            data.flush();
+            fs.getFD().sync();
+            written = true;
+        } finally {
+            data.close();
+            if (!written)
+                tmp.delete();
+        }
+        GameBoard.replaceFile(tmp, file);
+    }
+
+    /**
+     * Read a checkpoint file.
+     * @param file The file to read.
+     * @param rules The rule set to use, or null to create one.
+     * @return The checkpointed board.
+     * @throws InvalidBoardException If the file is damaged.
+     * @throws IOException If the file cannot be read.
+     */
+    static GameBoard read(File file, RuleSet rules)
+            throws IOException, InvalidBoardException {
+        CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(file)), new CRC32());
+        DataInputStream data = new DataInputStream(checked);
+        try {
+            if (data.readInt() != MAGIC)
+                throw new InvalidBoardException(file + " is not a checkpoint");
+            if (data.readInt() != VERSION)
+                throw new InvalidBoardException(file + " is not a checkpoint");
+            long generation = data.readLong();
+            String description = data.readUTF();
+            String ruleName = data.readUTF();
+            String typeName = data.readUTF();
+            int radius = data.readInt();
+            int width = data.readInt();
+            int height = data.readInt();
+            Neighborhood.Type type;
+            try {
+                type = Neighborhood.Type.valueOf(typeName);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidBoardException(file + " is damaged", e);
+            }
+            if (radius < 1 || width < 0 || height < 0)
+                throw new InvalidBoardException(file + " is damaged");
+
+            if (rules == null) {
+                try {
+                    rules = RuleDescription.create(description, ruleName);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+            String given = RuleDescription.describe(rules);
+            if (!given.equals(description)) {
+                throw new IllegalArgumentException(String.format(
+                        "%s was written with rules '%s', not '%s'",
+                        file, description, given));
+            }
+
+            GameBoard board = new GameBoard(rules, width, height);
+            board.setNeighborhood(new Neighborhood(type, radius));
+            board.setGeneration(generation);
+            for (int x = 0; x < width; x++) {
+                board.setColumn(x, CellPacking.readBits(data, height));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (data.readLong() != expected)
+                throw new InvalidBoardException(file + " is damaged");
+            return board;
+        } catch (EOFException e) {
+            throw new InvalidBoardException(file + " is truncated", e);
+        } finally {
+            data.close();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package edu.macalester.comp124.life;
+
+/**
+ * An engine which counts the cells it computes while stepping.
+ *
+ * A GameBoard keeps its population, births and deaths and bounding box up to
+ * date as it steps.  With an engine implementing this interface it gets
+ * them from the engine's own pass over the cells; with any other engine it
+ * has to make a second pass.  Both step methods must compute the same cells.
+ */
+public interface CountingEngine extends LifeEngine {
+
+    /**
+     * Compute one or more generations, as LifeEngine.step() does, and count
+     * the cells of each column afterwards.
+     * @param src The current cells.  These must not be modified.
+     * @param dst The buffer receiving the cells after the last generation
+     *            computed.  Its old contents are garbage.
+     * @param width The board width.
+     * @param height The board height.
+     * @param rules The rule set.
+     * @param neighborhood The neighborhood used to count living neighbors.
+     * @param generations The most generations to compute, at least 1.
+     * @param living Receives the number of living cells in each column of
+     *               dst.
+     * @param changed Receives the number of cells in each column which differ
+     *                between src and dst.
+     * @return The number of generations computed.
+     */
+    public int step(boolean[][] src, boolean[][] dst, int width, int height,
+            RuleSet rules, Neighborhood neighborhood, int generations,
+            int[] living, int[] changed);
+}
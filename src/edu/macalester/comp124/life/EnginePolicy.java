@@ -0,0 +1,156 @@
+package edu.macalester.comp124.life;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Chooses which engine steps a board.
+ *
+ * The policy asks every engine that supports the board's rules and
+ * neighborhood for an estimate of its cost at the board's size and
+ * population, and picks the cheapest.  A board consults its policy again
+ * every few generations, so a run which starts as a dense soup on the table
+ * engine moves to the sparse engine once it has burned down to ash.  To
+ * avoid flipping back and forth near the break-even point, the policy only
+ * switches away from the engine it chose last when another is clearly
+ * cheaper.
+ *
+ * Boards are always bounded by dead cells, so the board's topology does not
+ * yet enter into the choice.
+ *
+ * A policy creates its own engines, which keep caches for the board they
+ * step, so each policy should be given to one board only.
+ */
+public class EnginePolicy {
+
+    /** How many generations a board runs between consultations */
+    public static final int DEFAULT_INTERVAL = 32;
+    /** How much cheaper another engine must be to switch to it */
+    private static final double SWITCH_MARGIN = 0.8;
+
+    private List<LifeEngine> engines;
+    private int interval = DEFAULT_INTERVAL;
+    /** The engine chosen last */
+    private LifeEngine current;
+
+    /**
+     * The engine classes registered with ServiceLoader.  Looking them up
+     * means scanning the class path, so it is only done once, the first time
+     * a policy is created; each policy then creates its own engines, since
+     * engines keep caches for the board they step.
+     */
+    private static class Registry {
+        static final List<Class<? extends LifeEngine>> ENGINES = find();
+
+        private static List<Class<? extends LifeEngine>> find() {
+            List<Class<? extends LifeEngine>> classes =
+                    new ArrayList<Class<? extends LifeEngine>>();
+            for (LifeEngine e : ServiceLoader.load(LifeEngine.class,
+                    EnginePolicy.class.getClassLoader())) {
+                classes.add(e.getClass());
+            }
+            if (classes.isEmpty()) {
+                classes.add(TableEngine.class);
+                classes.add(SparseEngine.class);
+                classes.add(LargeNeighborhoodEngine.class);
+                classes.add(ReferenceEngine.class);
+            }
+            return Collections.unmodifiableList(classes);
+        }
+    }
+
+    /**
+     * Create a policy choosing among new instances of the engines registered
+     * with ServiceLoader.  If none are registered (for instance, because the
+     * service file is not on the class path), the built-in engines are used.
+     */
+    public EnginePolicy() {
+        this(Registry.ENGINES);
+    }
+
+    /**
+     * Create a policy choosing among new instances of particular engines.
+     * @param engines The engine classes, which must have public no-argument
+     *                constructors.
+     * @throws IllegalArgumentException If an engine cannot be created.
+     */
+    public EnginePolicy(List<Class<? extends LifeEngine>> engines) {
+        this.engines = new ArrayList<LifeEngine>();
+        for (Class<? extends LifeEngine> c : engines) {
+            try {
+                this.engines.add(c.getDeclaredConstructor().newInstance());
+            } catch (Exception e) {
+                throw new IllegalArgumentException(
+                        String.format("Cannot create engine %s", c.getName()), e);
+            }
+        }
+    }
+
+    /**
+     * Get the engines the policy chooses among.
+     * @return The engines.
+     */
+    public List<LifeEngine> getEngines() {
+        return Collections.unmodifiableList(engines);
+    }
+
+    /**
+     * Queries how many generations a board runs between consultations.
+     * @return The number of generations
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Sets how many generations a board runs between consultations.
+     * @param generations The number of generations
+     */
+    public void setInterval(int generations) {
+        if (generations < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid interval %d", generations));
+        }
+        interval = generations;
+    }
+
+    /**
+     * Choose the engine to step a board with.
+     * @param rules The rule set.
+     * @param neighborhood The neighborhood used to count living neighbors.
+     * @param width The board width.
+     * @param height The board height.
+     * @param population The number of living cells.
+     * @return The engine to use.
+     * @throws UnsupportedOperationException If no engine can run the rules.
+     */
+    public LifeEngine select(RuleSet rules, Neighborhood neighborhood,
+            int width, int height, long population) {
+        LifeEngine best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (LifeEngine e : engines) {
+            if (!e.supports(rules, neighborhood))
+                continue;
+            double c = e.cost(rules, neighborhood, width, height, population);
+            if (best == null || c < bestCost) {
+                best = e;
+                bestCost = c;
+            }
+        }
+        if (best == null) {
+            throw new UnsupportedOperationException(String.format(
+                    "No engine can run %s with %s", rules.getName(), neighborhood));
+        }
+
+        if (current != null && current != best
+                && current.supports(rules, neighborhood)) {
+            double c = current.cost(rules, neighborhood, width, height, population);
+            if (bestCost > c * SWITCH_MARGIN)
+                best = current;
+        }
+        current = best;
+        return best;
+    }
+}
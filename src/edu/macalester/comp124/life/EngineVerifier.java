@@ -0,0 +1,790 @@
+package edu.macalester.comp124.life;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the stepping engines agree with the reference engine on large
+ * numbers of random boards.
+ *
+ * Each case is generated from its own seed: a board of random size and
+ * density, and a random rule, either an isotropic rule on the standard
+ * neighborhood or a Larger than Life rule.  Every engine which supports the
+ * case is run side by side with the ReferenceEngine, and the boards are
+ * compared after every step.  Engines are asked for several generations at
+ * a time, so multi-generation stepping is checked too, and the buffers they
+ * write into are filled with junk first, since a real board hands them the
+ * generation before last.
+ *
+ * An engine which agrees on its own is then run on a GameBoard, stepped by
+ * next() and advance() and sometimes snapshotted, and the board's cells,
+ * population, births, deaths and bounding box are checked against the
+ * reference engine after every step.  This covers what the board adds
+ * around the engine: the window of columns it steps, the buffers it reuses
+ * and the statistics it keeps.
+ *
+ * When an engine disagrees, the case is shrunk: the number of generations is
+ * cut to the first disagreement, the board is cropped from each side, and
+ * living cells are removed, for as long as the engine still disagrees, on
+ * its own or on a board as it first did.  The result is usually a board of a handful of cells.
+ *
+ * Cases are spread across several threads, each with its own engines.
+ */
+public class EngineVerifier {
+
+    /**
+     * One randomly generated board to step.
+     */
+    public static class Case {
+        private long seed;
+        private RuleSet ruleSet;
+        private Neighborhood neighborhood;
+        private boolean[][] cells;
+        private int width;
+        private int height;
+        private int generations;
+
+        Case(long seed, RuleSet rules, Neighborhood n, boolean[][] cells,
+                int width, int height, int generations) {
+            this.seed = seed;
+            this.ruleSet = rules;
+            this.neighborhood = n;
+            this.cells = cells;
+            this.width = width;
+            this.height = height;
+            this.generations = generations;
+        }
+
+        /**
+         * Queries the seed the case was generated from.
+         * @return The seed
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Queries the case's rule set.
+         * @return The rule set
+         */
+        public RuleSet getRuleSet() {
+            return ruleSet;
+        }
+
+        /**
+         * Queries the case's neighborhood.
+         * @return The neighborhood
+         */
+        public Neighborhood getNeighborhood() {
+            return neighborhood;
+        }
+
+        /**
+         * Queries the board's width.
+         * @return The width of the board
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Queries the board's height.
+         * @return The height of the board
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Queries the number of generations to run.
+         * @return The number of generations
+         */
+        public int getGenerations() {
+            return generations;
+        }
+
+        /**
+         * Create a game board holding the case's starting cells.
+         * @return The new board
+         */
+        public GameBoard toBoard() {
+            GameBoard b = new GameBoard(ruleSet, width, height);
+            b.setNeighborhood(neighborhood);
+            for (int x = 0; x < width; x++) {
+                b.setColumn(x, cells[x]);
+            }
+            return b;
+        }
+
+        /**
+         * Count the living cells of the starting board.
+         * @return The population
+         */
+        public int getPopulation() {
+            int n = 0;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    if (cells[x][y])
+                        n++;
+                }
+            }
+            return n;
+        }
+
+        /**
+         * Describe the case, drawing the board with 'O' for living cells.
+         */
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("seed %d: %s, %s, %dx%d, %d generations%n",
+                    seed, ruleSet.getName(), neighborhood, width, height, generations));
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    sb.append(cells[x][y] ? 'O' : '.');
+                }
+                sb.append(String.format("%n"));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A disagreement between an engine and the reference engine.
+     */
+    public static class Mismatch {
+        private String engine;
+        private boolean onBoard;
+        private Case original;
+        private Case shrunk;
+        private int generation;
+        private int x;
+        private int y;
+        private String statistic;
+
+        Mismatch(String engine, boolean onBoard, Case original, Case shrunk,
+                int generation, int x, int y, String statistic) {
+            this.engine = engine;
+            this.onBoard = onBoard;
+            this.original = original;
+            this.shrunk = shrunk;
+            this.generation = generation;
+            this.x = x;
+            this.y = y;
+            this.statistic = statistic;
+        }
+
+        /**
+         * Queries the name of the engine that disagreed.
+         * @return The engine's name
+         */
+        public String getEngine() {
+            return engine;
+        }
+
+        /**
+         * Queries whether the engine only disagreed when stepping a GameBoard.
+         * @return true if the disagreement was found on a board
+         */
+        public boolean isOnBoard() {
+            return onBoard;
+        }
+
+        /**
+         * Queries the case as generated.
+         * @return The original case
+         */
+        public Case getOriginal() {
+            return original;
+        }
+
+        /**
+         * Queries the smallest case found on which the engine disagrees.
+         * @return The shrunk case
+         */
+        public Case getShrunk() {
+            return shrunk;
+        }
+
+        /**
+         * Queries the generation of the shrunk case at which the boards first
+         * differed.
+         * @return The generation
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Queries what differed: "cells", or one of the board's statistics,
+         * "population", "births", "deaths" or "bounding box".
+         * @return The name of what differed
+         */
+        public String getStatistic() {
+            return statistic;
+        }
+
+        /**
+         * Queries the X-coordinate of the first differing cell.
+         * @return The X-coordinate, or -1 if a statistic differed
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * Queries the Y-coordinate of the first differing cell.
+         * @return The Y-coordinate, or -1 if a statistic differed
+         */
+        public int getY() {
+            return y;
+        }
+
+        public String toString() {
+            String where = onBoard ? " on a board" : "";
+            if (x < 0) {
+                return String.format("%s engine%s gets the %s wrong in generation %d of %s",
+                        engine, where, statistic, generation, shrunk);
+            }
+            return String.format("%s engine%s differs at %d,%d in generation %d of %s",
+                    engine, where, x, y, generation, shrunk);
+        }
+    }
+
+    /** What a difference found by compare() was in, by index */
+    private static final String[] STATISTICS = {
+        "cells", "population", "births", "deaths", "bounding box"
+    };
+    private static final int CELLS = 0;
+    private static final int POPULATION = 1;
+    private static final int BIRTHS = 2;
+    private static final int DEATHS = 3;
+    private static final int BOUNDS = 4;
+
+    private List<LifeEngine> engines;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxSize = 100;
+    private int maxGenerations = 40;
+
+    /** The number of cases run by the last call to run() */
+    private int lastCount;
+    /** The time taken by the last call to run(), in nanoseconds */
+    private long lastElapsed;
+
+    /**
+     * Create a verifier for every engine registered with ServiceLoader.
+     */
+    public EngineVerifier() {
+        this(new EnginePolicy().getEngines());
+    }
+
+    /**
+     * Create a verifier for particular engines.  Each thread makes its own
+     * copies of the engines, so their classes must have public no-argument
+     * constructors.  Reference engines in the list are skipped.
+     * @param engines The engines to verify.
+     */
+    public EngineVerifier(List<LifeEngine> engines) {
+        this.engines = new ArrayList<LifeEngine>();
+        for (LifeEngine e : engines) {
+            if (!(e instanceof ReferenceEngine))
+                this.engines.add(e);
+        }
+    }
+
+    /**
+     * Set the number of threads to run cases on.
+     * @param n The number of threads (defaults to the number of processors).
+     */
+    public void setThreads(int n) {
+        threads = n;
+    }
+
+    /**
+     * Set the largest width and height of generated boards.
+     * @param n The largest size
+     */
+    public void setMaxSize(int n) {
+        maxSize = n;
+    }
+
+    /**
+     * Set the most generations a case runs for.
+     * @param n The generation limit
+     */
+    public void setMaxGenerations(int n) {
+        maxGenerations = n;
+    }
+
+    /**
+     * Run a range of cases, blocking until all of them have finished.
+     * @param firstSeed The seed of the first case; the rest use the seeds
+     *                  following it.
+     * @param count The number of cases to run.
+     * @return The disagreements found, shrunk, in order of seed.
+     */
+    public List<Mismatch> run(long firstSeed, int count) {
+        final List<Mismatch> found = new ArrayList<Mismatch>();
+        lastElapsed = ParallelSeeds.run("engine-verifier-", threads, firstSeed, count,
+                new ParallelSeeds.Factory() {
+            public ParallelSeeds.Worker create() {
+                final List<LifeEngine> mine = copyEngines();
+                return new ParallelSeeds.Worker() {
+                    void process(long seed) {
+                        Case c = generate(seed, maxSize, maxGenerations);
+                        for (LifeEngine e : mine) {
+                            Mismatch m = verify(c, e);
+                            if (m != null) {
+                                synchronized (found) {
+                                    found.add(m);
+                                }
+                            }
+                        }
+                    }
+                };
+            }
+        });
+        lastCount = count;
+
+        Collections.sort(found, new Comparator<Mismatch>() {
+            public int compare(Mismatch a, Mismatch b) {
+                long sa = a.getOriginal().getSeed();
+                long sb = b.getOriginal().getSeed();
+                return sa < sb ? -1 : (sa == sb ? 0 : 1);
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Query the throughput of the last call to run().
+     * @return The number of cases finished per second.
+     */
+    public double getCasesPerSecond() {
+        if (lastElapsed == 0)
+            return 0;
+        return lastCount * 1e9 / lastElapsed;
+    }
+
+    /**
+     * Make fresh copies of the engines for one thread.
+     */
+    private List<LifeEngine> copyEngines() {
+        List<LifeEngine> copies = new ArrayList<LifeEngine>();
+        for (LifeEngine e : engines) {
+            copies.add(newEngine(e));
+        }
+        return copies;
+    }
+
+    private static LifeEngine newEngine(LifeEngine prototype) {
+        try {
+            return prototype.getClass().getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot create engine %s", prototype.getClass()), e);
+        }
+    }
+
+    /**
+     * Generate a random case.
+     * @param seed The seed to generate the case from.
+     * @param maxSize The largest width and height.
+     * @param maxGenerations The most generations to run.
+     * @return The case
+     */
+    public static Case generate(long seed, int maxSize, int maxGenerations) {
+        Random rng = new Random(seed);
+        int w = 1 + rng.nextInt(maxSize);
+        int h = 1 + rng.nextInt(maxSize);
+        // sparse boards are what the sparse engine is for, so make plenty
+        double density = rng.nextInt(3) == 0
+                ? rng.nextDouble() * 0.05 : rng.nextDouble();
+
+        RuleSet rules;
+        Neighborhood n;
+        if (rng.nextInt(4) == 0) {
+            LargerThanLife ltl = randomRange(rng);
+            rules = ltl;
+            n = ltl.getNeighborhood();
+        } else {
+            rules = randomIsotropic(rng);
+            n = Neighborhood.MOORE;
+        }
+
+        boolean[][] cells = new boolean[w][h];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                cells[x][y] = rng.nextDouble() < density;
+            }
+        }
+        return new Case(seed, rules, n, cells, w, h, 1 + rng.nextInt(maxGenerations));
+    }
+
+    /**
+     * Make a random isotropic rule.  Most neighbor counts are either absent
+     * or present for every shape; some list or exclude particular shapes.
+     */
+    private static Isotropic randomIsotropic(Random rng) {
+        String letters = "ceaiknjqrytwz";
+        int[] shapes = {0, 2, 6, 10, 13, 10, 6, 2, 0};
+        StringBuilder rule = new StringBuilder();
+        for (String half : new String[] {"B", "/S"}) {
+            rule.append(half);
+            for (int count = 0; count <= 8; count++) {
+                // B0 rules are rare in practice, but must still work
+                double p = half.equals("B") && count == 0 ? 0.1 : 0.35;
+                if (rng.nextDouble() >= p)
+                    continue;
+                rule.append(count);
+                if (shapes[count] == 0 || rng.nextInt(3) != 0)
+                    continue;
+                if (rng.nextBoolean())
+                    rule.append('-');
+                StringBuilder listed = new StringBuilder();
+                for (int k = 0; k < shapes[count]; k++) {
+                    if (rng.nextBoolean())
+                        listed.append(letters.charAt(k));
+                }
+                if (listed.length() == 0)
+                    listed.append(letters.charAt(0));
+                rule.append(listed);
+            }
+        }
+        return new Isotropic(rule.toString(), rule.toString());
+    }
+
+    /**
+     * Make a random Larger than Life rule with a small radius.
+     */
+    private static LargerThanLife randomRange(Random rng) {
+        int r = 1 + rng.nextInt(4);
+        char type = "MNH".charAt(rng.nextInt(3));
+        int size = new Neighborhood(type == 'M' ? Neighborhood.Type.MOORE
+                : type == 'N' ? Neighborhood.Type.VON_NEUMANN
+                : Neighborhood.Type.HEXAGONAL, r).getSize();
+        int s0 = rng.nextInt(size + 1);
+        int s1 = s0 + rng.nextInt(size + 1 - s0);
+        int b0 = rng.nextInt(size + 1);
+        int b1 = b0 + rng.nextInt(size + 1 - b0);
+        String rule = String.format("R%d,C0,M%d,S%d..%d,B%d..%d,N%c",
+                r, rng.nextInt(2), s0, s1, b0, b1, type);
+        return new LargerThanLife(rule, rule);
+    }
+
+    /**
+     * Check an engine against the reference engine on one case, on its own
+     * and then on a GameBoard, shrinking the case if they disagree.
+     * @param c The case.
+     * @param engine The engine to check.  It must be used by one thread only.
+     * @return The disagreement, or null if the engine agrees.
+     */
+    public Mismatch verify(Case c, LifeEngine engine) {
+        if (!engine.supports(c.getRuleSet(), c.getNeighborhood()))
+            return null;
+        for (boolean onBoard : new boolean[] {false, true}) {
+            int[] where = compare(c, engine, onBoard);
+            if (where != null) {
+                Case small = shrink(c, engine, onBoard, where[0]);
+                where = compare(small, engine, onBoard);
+                return new Mismatch(engine.getName(), onBoard, c, small,
+                        where[0], where[1], where[2], STATISTICS[where[3]]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run an engine and the reference engine side by side on a case.
+     * @param onBoard true to step a GameBoard with the engine, false to call
+     *                the engine directly.
+     * @return The generation and coordinates of the first difference and the
+     *         index in STATISTICS of what differed, or null if there was no
+     *         difference.
+     */
+    static int[] compare(Case c, LifeEngine engine, boolean onBoard) {
+        return onBoard ? compareBoard(c, engine) : compareSteps(c, engine);
+    }
+
+    /**
+     * Call an engine directly, with junk in the buffers it writes into.
+     */
+    private static int[] compareSteps(Case c, LifeEngine engine) {
+        int w = c.width;
+        int h = c.height;
+        LifeEngine reference = new ReferenceEngine();
+        Random junk = new Random(c.seed);
+
+        boolean[][] expected = copy(c.cells, w, h);
+        boolean[][] expectedNext = new boolean[w][h];
+        boolean[][] actual = copy(c.cells, w, h);
+        boolean[][] actualNext = new boolean[w][h];
+        int gen = 0;
+        while (gen < c.generations) {
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    actualNext[x][y] = junk.nextBoolean();
+                }
+            }
+            int ask = 1 + junk.nextInt(Math.min(c.generations - gen, 12));
+            int k = engine.step(actual, actualNext, w, h,
+                    c.ruleSet, c.neighborhood, ask);
+            if (k < 1 || k > ask) {
+                throw new IllegalStateException(String.format(
+                        "%s engine computed %d generations when asked for %d",
+                        engine.getName(), k, ask));
+            }
+            boolean[][] t = actual;
+            actual = actualNext;
+            actualNext = t;
+
+            for (int i = 0; i < k; i++) {
+                reference.step(expected, expectedNext, w, h,
+                        c.ruleSet, c.neighborhood, 1);
+                t = expected;
+                expected = expectedNext;
+                expectedNext = t;
+            }
+            gen += k;
+
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    if (expected[x][y] != actual[x][y])
+                        return new int[] {gen, x, y, CELLS};
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Step a GameBoard fixed to an engine, checking its statistics as well
+     * as its cells.  Births and deaths are only checked after next(), since
+     * after advance() they depend on how many generations the engine took
+     * at a time.
+     */
+    private static int[] compareBoard(Case c, LifeEngine engine) {
+        int w = c.width;
+        int h = c.height;
+        LifeEngine reference = new ReferenceEngine();
+        Random junk = new Random(c.seed);
+
+        GameBoard board = c.toBoard();
+        board.setEngine(engine);
+        boolean counting = junk.nextInt(4) != 0;
+        board.setCounting(counting);
+        boolean[][] before = new boolean[w][h];
+        boolean[][] expected = copy(c.cells, w, h);
+        boolean[][] expectedNext = new boolean[w][h];
+        // a snapshot held across a step keeps the board from reusing a buffer
+        BoardSnapshot held = null;
+        int gen = 0;
+        try {
+            while (gen < c.generations) {
+                int k = junk.nextBoolean()
+                        ? 1 : 1 + junk.nextInt(Math.min(c.generations - gen, 12));
+                if (k == 1) {
+                    board.next();
+                } else {
+                    board.advance(k);
+                }
+                if (held != null) {
+                    held.release();
+                    held = null;
+                }
+                if (junk.nextInt(4) == 0)
+                    held = board.snapshot();
+
+                for (int i = 0; i < k; i++) {
+                    reference.step(expected, expectedNext, w, h,
+                            c.ruleSet, c.neighborhood, 1);
+                    boolean[][] t = before;
+                    before = expected;
+                    expected = expectedNext;
+                    expectedNext = t;
+                }
+                gen += k;
+
+                long population = 0;
+                long born = 0;
+                long died = 0;
+                int x0 = w;
+                int x1 = 0;
+                int y0 = h;
+                int y1 = 0;
+                for (int x = 0; x < w; x++) {
+                    for (int y = 0; y < h; y++) {
+                        boolean alive = expected[x][y];
+                        if (board.getCell(x, y) != alive)
+                            return new int[] {gen, x, y, CELLS};
+                        if (alive) {
+                            population++;
+                            x0 = Math.min(x0, x);
+                            x1 = Math.max(x1, x + 1);
+                            y0 = Math.min(y0, y);
+                            y1 = Math.max(y1, y + 1);
+                            if (!before[x][y])
+                                born++;
+                        } else if (before[x][y]) {
+                            died++;
+                        }
+                    }
+                }
+                if (board.getPopulation() != population)
+                    return new int[] {gen, -1, -1, POPULATION};
+                if (counting && k == 1) {
+                    if (board.getBirths() != born)
+                        return new int[] {gen, -1, -1, BIRTHS};
+                    if (board.getDeaths() != died)
+                        return new int[] {gen, -1, -1, DEATHS};
+                }
+                Rectangle box = population == 0
+                        ? null : new Rectangle(x0, y0, x1 - x0, y1 - y0);
+                Rectangle actual = board.getBoundingBox();
+                if (box == null ? actual != null : !box.equals(actual))
+                    return new int[] {gen, -1, -1, BOUNDS};
+            }
+        } finally {
+            if (held != null)
+                held.release();
+        }
+        return null;
+    }
+
+    /**
+     * Shrink a failing case for as long as the engine keeps failing on it.
+     * @param c The failing case.
+     * @param engine The engine.
+     * @param onBoard Whether the engine failed on a GameBoard.
+     * @param generation The generation at which the case first failed.
+     * @return The smallest failing case found.
+     */
+    private static Case shrink(Case c, LifeEngine engine, boolean onBoard,
+            int generation) {
+        c = truncate(c, engine, onBoard, generation);
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+
+            // crop each side, by half the board first and then by less
+            for (int side = 0; side < 4; side++) {
+                int extent = side < 2 ? c.width : c.height;
+                for (int cut = extent / 2; cut >= 1; cut /= 2) {
+                    Case smaller = crop(c, side, cut);
+                    while (smaller != null && fails(smaller, engine, onBoard)) {
+                        c = smaller;
+                        progress = true;
+                        smaller = crop(c, side, cut);
+                    }
+                }
+            }
+
+            // remove living cells, in large groups first
+            List<int[]> living = new ArrayList<int[]>();
+            for (int x = 0; x < c.width; x++) {
+                for (int y = 0; y < c.height; y++) {
+                    if (c.cells[x][y])
+                        living.add(new int[] {x, y});
+                }
+            }
+            for (int chunk = Math.max(living.size() / 2, 1); chunk >= 1; chunk /= 2) {
+                for (int i = 0; i < living.size(); ) {
+                    List<int[]> group = living.subList(i, Math.min(i + chunk, living.size()));
+                    boolean[][] cells = copy(c.cells, c.width, c.height);
+                    for (int[] p : group) {
+                        cells[p[0]][p[1]] = false;
+                    }
+                    Case smaller = new Case(c.seed, c.ruleSet, c.neighborhood,
+                            cells, c.width, c.height, c.generations);
+                    if (fails(smaller, engine, onBoard)) {
+                        c = smaller;
+                        progress = true;
+                        group.clear();
+                    } else {
+                        i += chunk;
+                    }
+                }
+            }
+
+            // stop at the first generation that still differs
+            int last = compare(c, engine, onBoard)[0];
+            for (int g = 1; g <= last; g++) {
+                Case shorter = truncate(c, engine, onBoard, g);
+                if (shorter != c) {
+                    c = shorter;
+                    progress = true;
+                    break;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Cut a failing case short at a generation, if it still fails.  Running
+     * fewer generations changes how many the engine is asked for at a time,
+     * which may hide the failure.
+     */
+    private static Case truncate(Case c, LifeEngine engine, boolean onBoard,
+            int generation) {
+        if (generation >= c.generations)
+            return c;
+        Case shorter = new Case(c.seed, c.ruleSet, c.neighborhood, c.cells,
+                c.width, c.height, generation);
+        return fails(shorter, engine, onBoard) ? shorter : c;
+    }
+
+    private static boolean fails(Case c, LifeEngine engine, boolean onBoard) {
+        return compare(c, engine, onBoard) != null;
+    }
+
+    /**
+     * Remove some columns or rows from one side of a case.
+     * @param side 0 for the left, 1 the right, 2 the top and 3 the bottom.
+     * @return The cropped case, or null if nothing would be left.
+     */
+    private static Case crop(Case c, int side, int cut) {
+        int w = side < 2 ? c.width - cut : c.width;
+        int h = side < 2 ? c.height : c.height - cut;
+        if (w < 1 || h < 1)
+            return null;
+        int dx = side == 0 ? cut : 0;
+        int dy = side == 2 ? cut : 0;
+        boolean[][] cells = new boolean[w][];
+        for (int x = 0; x < w; x++) {
+            cells[x] = new boolean[h];
+            System.arraycopy(c.cells[x + dx], dy, cells[x], 0, h);
+        }
+        return new Case(c.seed, c.ruleSet, c.neighborhood, cells, w, h, c.generations);
+    }
+
+    private static boolean[][] copy(boolean[][] cells, int w, int h) {
+        boolean[][] result = new boolean[w][];
+        for (int x = 0; x < w; x++) {
+            result[x] = cells[x].clone();
+        }
+        return result;
+    }
+
+    /**
+     * Verify the registered engines from the command line.
+     * @param args The number of cases and the first seed.
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+
+        EngineVerifier verifier = new EngineVerifier();
+        List<Mismatch> found = verifier.run(seed, count);
+        for (Mismatch m : found) {
+            System.out.println(m);
+        }
+        System.out.println(String.format("%d cases, %d mismatches, %.1f cases/s",
+                count, found.size(), verifier.getCasesPerSecond()));
+        if (!found.isEmpty())
+            System.exit(1);
+    }
+}
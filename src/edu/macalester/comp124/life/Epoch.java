@@ -0,0 +1,70 @@
+package edu.macalester.comp124.life;
+
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One published generation of a GameBoard.
+ *
+ * An epoch's cells never change once it is published.  It counts the
+ * references to it: the board holds one while the epoch is its latest, and
+ * each snapshot of it holds one more.  When the last is released the cells
+ * go back to the board's pool of buffers, to be written over by a later
+ * generation.  A reference can only be taken while some other is still
+ * held, so a reader can never pick up an epoch whose buffer is being reused.
+ */
+class Epoch {
+
+    /** The most buffers a board keeps for reuse */
+    static final int MAX_POOL = 4;
+
+    final boolean[][] cells;
+    final long generation;
+    final RuleSet ruleSet;
+    final Neighborhood neighborhood;
+    private final Deque<boolean[][]> pool;
+    private final AtomicInteger refs = new AtomicInteger(1);
+
+    /**
+     * Create an epoch holding a single reference for the board.
+     * @param cells The generation's cells, which must not change again.
+     * @param generation The generation number.
+     * @param rules The rule set the board was using.
+     * @param neighborhood The neighborhood the board was using.
+     * @param pool Where the cells go when the epoch is no longer used.
+     */
+    Epoch(boolean[][] cells, long generation, RuleSet rules,
+            Neighborhood neighborhood, Deque<boolean[][]> pool) {
+        this.cells = cells;
+        this.generation = generation;
+        this.ruleSet = rules;
+        this.neighborhood = neighborhood;
+        this.pool = pool;
+    }
+
+    /**
+     * Take another reference to the epoch, unless it has already been given
+     * up.
+     * @return true if the reference was taken, false if the cells may already
+     *         be reused.
+     */
+    boolean retain() {
+        while (true) {
+            int n = refs.get();
+            if (n == 0)
+                return false;
+            if (refs.compareAndSet(n, n + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Give up a reference to the epoch, recycling its cells if it was the
+     * last.
+     */
+    void release() {
+        if (refs.decrementAndGet() == 0 && pool.size() < MAX_POOL) {
+            pool.offerFirst(cells);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package edu.macalester.comp124.life;
+
+import javax.swing.*;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the stream of frames sent by a FrameServer into a board.
+ *
+ * The board is created when the first keyframe arrives.  After each frame is
+ * read, the board holds that generation and has published it, so it may be
+ * painted by a LifeComponent on another thread while the next frame is read.
+ * Run as a program, this opens a window showing the stream.
+ */
+public class FrameClient {
+
+    private DataInputStream in;
+    private Inflater inflater = new Inflater();
+    private GameBoard board;
+    /** The latest frame's cells, packed as in the stream */
+    private byte[] packed;
+    /** The cells of the frame being read */
+    private byte[] data;
+    private boolean[] column;
+
+    /**
+     * Connect to a server on this machine.
+     * @param port The port the server is listening on.
+     * @throws IOException If the server cannot be reached.
+     */
+    public FrameClient(int port) throws IOException {
+        this(new Socket(InetAddress.getLoopbackAddress(), port).getInputStream());
+    }
+
+    /**
+     * Read frames from a stream.
+     * @param input The stream
+     */
+    public FrameClient(InputStream input) {
+        in = new DataInputStream(new BufferedInputStream(input));
+    }
+
+    /**
+     * Queries the board holding the latest frame.
+     * @return The board, or null if no frame has been read yet.
+     */
+    public GameBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Read the next frame into the board.
+     * @return false if the server has closed the stream.
+     * @throws IOException If the stream cannot be read or is corrupt.
+     */
+    public boolean readFrame() throws IOException {
+        int kind = in.read();
+        if (kind < 0)
+            return false;
+        long generation = in.readLong();
+        int w = in.readInt();
+        int h = in.readInt();
+        int length = in.readInt();
+        if (kind != FrameServer.KEYFRAME && kind != FrameServer.DELTA) {
+            throw new IOException(String.format("Unknown frame type %d", kind));
+        }
+        if (w < 0 || h < 0 || length < 0) {
+            throw new IOException("Invalid frame header");
+        }
+        if (kind == FrameServer.DELTA && (board == null
+                || w != board.getWidth() || h != board.getHeight())) {
+            throw new IOException("Delta does not follow a matching keyframe");
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+
+        if (board == null || w != board.getWidth() || h != board.getHeight()) {
+            board = new GameBoard(w, h);
+            packed = new byte[(int) (((long) w * h + 7) / 8)];
+            data = new byte[packed.length];
+            column = new boolean[h];
+        }
+        inflate(body, data);
+        if (kind == FrameServer.KEYFRAME) {
+            byte[] t = packed;
+            packed = data;
+            data = t;
+        } else {
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] ^= data[i];
+            }
+        }
+
+        int i = 0;
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++, i++) {
+                column[y] = (packed[i >>> 3] & (1 << (i & 7))) != 0;
+            }
+            board.setColumn(x, column);
+        }
+        board.setGeneration(generation);
+        board.publish();
+        return true;
+    }
+
+    /**
+     * Inflate a frame's cells, checking that they are the right size.
+     */
+    private void inflate(byte[] body, byte[] out) throws IOException {
+        inflater.reset();
+        inflater.setInput(body);
+        int n = 0;
+        try {
+            while (n < out.length && !inflater.finished()) {
+                int k = inflater.inflate(out, n, out.length - n);
+                if (k == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                n += k;
+            }
+            if (n != out.length || !inflater.finished()) {
+                throw new IOException("Frame has the wrong number of cells");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt frame", e);
+        }
+    }
+
+    /**
+     * Close the stream.
+     * @throws IOException If an error occurs.
+     */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Show the stream from a server in a window.
+     * @param args The port the server is listening on.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: FrameClient port");
+            System.exit(2);
+        }
+        FrameClient client = new FrameClient(Integer.parseInt(args[0]));
+        if (!client.readFrame()) {
+            System.err.println("The server sent nothing");
+            System.exit(1);
+        }
+
+        final LifeComponent view = new LifeComponent(client.getBoard());
+        view.setEditable(false);
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                JFrame frame = new JFrame("Life Viewer");
+                frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                frame.getContentPane().add(new JScrollPane(view));
+                frame.pack();
+                frame.setVisible(true);
+            }
+        });
+        // the view paints the latest published frame, so it can be read
+        // here while the window repaints
+        while (client.readFrame()) {
+            view.repaint();
+        }
+        client.close();
+    }
+}
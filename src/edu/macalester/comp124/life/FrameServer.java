@@ -0,0 +1,414 @@
+package edu.macalester.comp124.life;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Runs a board without a window and streams its generations to viewers over
+ * a local socket.
+ *
+ * Each generation sent is encoded once, as a frame which is written byte for
+ * byte to every client.  A frame is either a keyframe, holding every cell,
+ * or a delta, holding the cells that changed since the frame before.  Every
+ * few frames is a keyframe.  A client which falls so far behind that too
+ * many frames are waiting for it has them thrown away and is sent the latest
+ * keyframe and the deltas since it instead, so a slow viewer skips
+ * generations but never holds up the simulation or the other viewers.
+ *
+ * A frame is written as a byte, KEYFRAME or DELTA; the generation as a long;
+ * the width and height as ints; and the length of the cells as an int,
+ * followed by the cells, deflated.  The cells are packed eight to a byte,
+ * column by column (x outer, y inner), starting from the lowest bit of the
+ * first byte.  A delta holds the exclusive or of the cells with the previous
+ * frame's.  FrameClient reads the stream.
+ */
+public class FrameServer {
+
+    /** The first byte of a keyframe */
+    static final byte KEYFRAME = 'K';
+    /** The first byte of a delta */
+    static final byte DELTA = 'D';
+
+    /**
+     * The socket send buffer for each client.  It is kept small so that a
+     * stalled client fills its queue, and drops to a keyframe, quickly
+     * rather than leaving stale frames piled up in the kernel.
+     */
+    private static final int SEND_BUFFER = 1 << 16;
+
+    private GameBoard board;
+    private ServerSocket server;
+    private int keyInterval = 32;
+    private int maxQueued = 64;
+    private int generationsPerFrame = 1;
+    private long delay;
+
+    /** The connected clients; guarded by sinceKey */
+    private List<Client> clients = new ArrayList<Client>();
+    /**
+     * The latest keyframe and the deltas following it, which a client needs
+     * to catch up.  Also the lock for sending frames and adding clients.
+     */
+    private List<byte[]> sinceKey = new ArrayList<byte[]>();
+    /** The number of frames encoded */
+    private long frames;
+    /** The packed cells of the latest frame, and of the one before it */
+    private byte[] packed;
+    private byte[] previous;
+    private Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] buffer = new byte[8192];
+    /** The number of times a client has fallen behind */
+    private AtomicLong dropped = new AtomicLong();
+    private Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Create a server for a board, listening on the loopback interface.
+     * Once the server is started, the board must only be used by run().
+     * @param board The board to run.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be opened.
+     */
+    public FrameServer(GameBoard board, int port) throws IOException {
+        this.board = board;
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Queries the port the server is listening on.
+     * @return The port number
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Set how often a keyframe is sent.
+     * @param n The number of frames from one keyframe to the next.
+     * @throws IllegalArgumentException If n is not positive, or not less
+     *         than the number of frames allowed to wait for a client.
+     */
+    public void setKeyInterval(int n) {
+        if (n < 1)
+            throw new IllegalArgumentException("Key interval must be positive");
+        if (n >= maxQueued) {
+            throw new IllegalArgumentException(String.format(
+                    "Key interval %d must be less than the queue limit %d",
+                    n, maxQueued));
+        }
+        keyInterval = n;
+    }
+
+    /**
+     * Set how many frames may wait for a client before it is considered to
+     * have fallen behind.  A client which falls behind waits for the next
+     * keyframe, so this must be more than the key interval.
+     * @param n The number of frames
+     * @throws IllegalArgumentException If n is not more than the key
+     *         interval.
+     */
+    public void setMaxQueued(int n) {
+        if (n <= keyInterval) {
+            throw new IllegalArgumentException(String.format(
+                    "Queue limit %d must be more than the key interval %d",
+                    n, keyInterval));
+        }
+        maxQueued = n;
+    }
+
+    /**
+     * Set the number of generations the board advances between frames.
+     * @param n The number of generations
+     */
+    public void setGenerationsPerFrame(int n) {
+        generationsPerFrame = n;
+    }
+
+    /**
+     * Set the time to wait before computing each frame.
+     * @param millis The delay in milliseconds (defaults to 0).
+     */
+    public void setDelay(long millis) {
+        delay = millis;
+    }
+
+    /**
+     * Queries the number of clients connected.
+     * @return The number of clients
+     */
+    public int getClientCount() {
+        synchronized (sinceKey) {
+            return clients.size();
+        }
+    }
+
+    /**
+     * Queries how many times a client has fallen behind and had its waiting
+     * frames replaced by the latest keyframe.
+     * @return The number of times frames were dropped
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Send the board's current generation as the first frame and start
+     * accepting clients.
+     */
+    public void start() {
+        sendFrame();
+        acceptor = new Thread("frame-server-accept") {
+            public void run() {
+                while (!closed) {
+                    try {
+                        addClient(server.accept());
+                    } catch (IOException e) {
+                        // the socket was closed, or the client went away
+                        // before it was set up
+                    }
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Run the board, sending a frame after each step, until a number of
+     * frames have been sent or the server is closed.  Clients never make
+     * this wait.
+     * @param count The number of frames to send.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    public void run(long count) throws InterruptedException {
+        for (long i = 0; i < count && !closed; i++) {
+            if (delay > 0)
+                Thread.sleep(delay);
+            board.advance(generationsPerFrame);
+            sendFrame();
+        }
+    }
+
+    /**
+     * Stop accepting clients and disconnect the ones connected.
+     * @throws IOException If the server socket cannot be closed.
+     */
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        synchronized (sinceKey) {
+            for (Client c : clients) {
+                c.close();
+            }
+            clients.clear();
+        }
+    }
+
+    /**
+     * Encode the board's current generation and queue it for every client.
+     */
+    private void sendFrame() {
+        boolean key = frames % keyInterval == 0;
+        BoardSnapshot snap = board.snapshot();
+        byte[] frame;
+        try {
+            frame = encode(snap, key);
+        } finally {
+            snap.release();
+        }
+        frames++;
+        synchronized (sinceKey) {
+            if (key)
+                sinceKey.clear();
+            sinceKey.add(frame);
+            for (Client c : clients) {
+                c.offer(frame);
+            }
+        }
+    }
+
+    /**
+     * Encode a frame.
+     * @param snap The generation to encode.
+     * @param key Whether to encode a keyframe rather than a delta.
+     * @return The frame, ready to be written.
+     */
+    private byte[] encode(BoardSnapshot snap, boolean key) {
+        int w = snap.getWidth();
+        int h = snap.getHeight();
+        if (packed == null) {
+            packed = new byte[(int) (((long) w * h + 7) / 8)];
+            previous = new byte[packed.length];
+        }
+        byte[] t = previous;
+        previous = packed;
+        packed = t;
+        Arrays.fill(packed, (byte) 0);
+        int i = 0;
+        for (int x = 0; x < w; x++) {
+            boolean[] column = snap.column(x);
+            for (int y = 0; y < h; y++, i++) {
+                if (column[y])
+                    packed[i >>> 3] |= 1 << (i & 7);
+            }
+        }
+
+        // the previous frame's cells are not needed again, so the delta is
+        // computed over them
+        byte[] data = packed;
+        if (!key) {
+            data = previous;
+            for (int j = 0; j < data.length; j++) {
+                data[j] ^= packed[j];
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            body.write(buffer, 0, n);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() + 21);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(key ? KEYFRAME : DELTA);
+            out.writeLong(snap.getGeneration());
+            out.writeInt(w);
+            out.writeInt(h);
+            out.writeInt(body.size());
+            body.writeTo(out);
+        } catch (IOException e) {
+            // cannot happen: the stream is in memory
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Set up a newly connected client and start sending it frames, beginning
+     * with the latest keyframe.
+     */
+    private void addClient(Socket socket) throws IOException {
+        socket.setSendBufferSize(SEND_BUFFER);
+        socket.setTcpNoDelay(true);
+        Client c = new Client(socket);
+        synchronized (sinceKey) {
+            if (closed) {
+                socket.close();
+                return;
+            }
+            c.queue.addAll(sinceKey);
+            clients.add(c);
+        }
+        c.start();
+    }
+
+    /**
+     * A connected client, with a thread writing the frames queued for it.
+     */
+    private class Client extends Thread {
+        private Socket socket;
+        /** The frames waiting to be written; guarded by this */
+        private ArrayDeque<byte[]> queue = new ArrayDeque<byte[]>();
+
+        public Client(Socket s) {
+            super("frame-server-client-" + s.getPort());
+            setDaemon(true);
+            socket = s;
+        }
+
+        /**
+         * Queue a frame, or if the client has fallen behind, throw away the
+         * frames waiting and queue the latest keyframe and the deltas after
+         * it.  The caller holds the sinceKey lock, and has already added the
+         * frame to sinceKey.
+         */
+        public synchronized void offer(byte[] frame) {
+            if (queue.size() >= maxQueued) {
+                queue.clear();
+                queue.addAll(sinceKey);
+                dropped.incrementAndGet();
+            } else {
+                queue.add(frame);
+            }
+            notifyAll();
+        }
+
+        public void run() {
+            try {
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                while (true) {
+                    byte[] frame;
+                    boolean more;
+                    synchronized (this) {
+                        while (queue.isEmpty()) {
+                            wait();
+                        }
+                        frame = queue.poll();
+                        more = !queue.isEmpty();
+                    }
+                    out.write(frame);
+                    // frames already waiting go out together
+                    if (!more)
+                        out.flush();
+                }
+            } catch (IOException e) {
+                // the client went away
+            } catch (InterruptedException e) {
+                // the server is closing
+            } finally {
+                synchronized (sinceKey) {
+                    clients.remove(this);
+                }
+                close();
+            }
+        }
+
+        /**
+         * Disconnect the client.
+         */
+        public void close() {
+            interrupt();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing more can be done
+            }
+        }
+    }
+
+    /**
+     * Run a random board and serve it until killed.
+     * @param args The board's width and height, and optionally the port and
+     *             the delay between frames in milliseconds.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: FrameServer width height [port] [delay]");
+            System.exit(2);
+        }
+        int width = Integer.parseInt(args[0]);
+        int height = Integer.parseInt(args[1]);
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        GameBoard board = new GameBoard(width, height);
+        board.fillRandom(0.3, new Random());
+        FrameServer server = new FrameServer(board, port);
+        server.setDelay(args.length > 3 ? Long.parseLong(args[3]) : 50);
+        server.start();
+        System.out.println(String.format("Serving on port %d", server.getPort()));
+        server.run(Long.MAX_VALUE);
+    }
+}
@@ -1,6 +1,13 @@
 package edu.macalester.comp124.life;
 
+import java.awt.Rectangle;
 import java.io.*;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * Class implementing the Life gameboard.
@@ -13,6 +20,18 @@ import java.io.*;
  */
 public class GameBoard {
     
+    /**
+     * How cells copied onto the board combine with the cells already there.
+     */
+    public enum BlitMode {
+        /** The copied cells replace the board's cells */
+        REPLACE,
+        /** A cell is alive if it was alive or the copied cell is alive */
+        OR,
+        /** A cell is toggled wherever the copied cell is alive */
+        XOR
+    }
+    
     /**
      * x,y offsets of the various neighbors of a cell.
      */
@@ -20,14 +39,73 @@ public class GameBoard {
         {0, -1}, {1, -1}, {1, 0}, {1, 1}, {0, 1},  {-1, 1}, {-1, 0}, {-1, -1}
     };
     
+    /** The number of cells read or written at a time by load() and save() */
+    private static final int CHUNK_CELLS = 1 << 16;
+    
     /** The board's width */
     private int boardWidth;
     /** The board's height */
     private int boardHeight;
-    /** The current game board */
+    /**
+     * The current game board.  This is the latest epoch's cells, unless the
+     * board has been edited since it was published, in which case it is a
+     * private copy.
+     */
     private boolean[][] board;
+    /**
+     * The latest published generation, which readers on any thread take
+     * snapshots of.  Its cells are never written to again.
+     */
+    private volatile Epoch latest;
+    /**
+     * Buffers no longer used by any epoch, for computing generations into.
+     * The most recently freed is reused first, as it is the likeliest to
+     * still be in the cache.
+     */
+    private Deque<boolean[][]> pool = new ConcurrentLinkedDeque<boolean[][]>();
+    /** The number of generations computed since the board was created */
+    private long generation;
     /** The rule set to use */
     private RuleSet ruleSet;
+    /** The cells counted as neighbors */
+    private Neighborhood neighborhood = Neighborhood.MOORE;
+    /** Chooses the engine that steps the board */
+    private EnginePolicy policy;
+    /** The engine chosen by the policy */
+    private LifeEngine engine;
+    /** The engine set by the caller, overriding the policy */
+    private LifeEngine fixedEngine;
+    /** Whether the board has changed enough to choose the engine again */
+    private boolean engineStale = true;
+    /** The number of generations since the engine was chosen */
+    private int sinceSelection;
+    /** The first column the next step computes, and one past the last */
+    private int windowStart, windowEnd;
+    /**
+     * The columns which may hold living cells in buffers written by step(),
+     * as {first, end}, so that reusing one only needs those cleared.  Buffers
+     * not listed may hold living cells anywhere.
+     */
+    private Map<boolean[][], int[]> liveColumns = new WeakHashMap<boolean[][], int[]>();
+    /** Whether an edit has made the population and bounding box unknown */
+    private boolean statsDirty = true;
+    /** Whether steps count the population, births and deaths */
+    private boolean counting = true;
+    /** Whether population is up to date, when the bounding box is */
+    private boolean populationKnown;
+    /** Whether births and deaths were counted in the last step */
+    private boolean changesKnown = true;
+    /** The number of living cells */
+    private long population;
+    /** The number of cells born in the last step */
+    private long births;
+    /** The number of cells which died in the last step */
+    private long deaths;
+    /** The bounding box of the living cells: [minX, maxX) x [minY, maxY) */
+    private int minX, maxX, minY, maxY;
+    /** The living and changed cells of each column stepped */
+    private int[] living;
+    private int[] changed;
     
     /**
      * Constructs a game board for play.
@@ -46,6 +124,7 @@ public class GameBoard {
             }
         }
         ruleSet = rules;
+        latest = new Epoch(board, generation, ruleSet, neighborhood, pool);
     }
     
     /**
@@ -79,45 +158,163 @@ public class GameBoard {
      * @throws java.io.IOException If an error occurs.
      */
     public GameBoard(RuleSet rules, File file) throws IOException {
+        GameBoard b;
+        try {
+            b = load(rules, file, null);
+        } catch (InvalidBoardException e) {
+            throw new IOException(e.getMessage(), e);
+        }
         ruleSet = rules;
-
-        FileInputStream s = new FileInputStream(file);
-        DataInputStream data = new DataInputStream(s);
-
+        boardWidth = b.boardWidth;
+        boardHeight = b.boardHeight;
+        board = b.board;
+        pool = b.pool;
+        latest = new Epoch(board, generation, ruleSet, neighborhood, pool);
+    }
+    
+    /**
+     * Loads a game board from a file.  The file is read a chunk of rows at a
+     * time, and each chunk is decoded straight into the new board, so large
+     * boards need no memory beyond the board itself.  The board is only
+     * returned once the whole file has been read and checked.
+     * @param rules The rule set for the new board.
+     * @param file The file containing game board data.
+     * @param listener Receives the number of rows read, or null.
+     * @return The board
+     * @throws InvalidBoardException If the file does not hold a valid board.
+     * @throws InterruptedIOException If the thread is interrupted.
+     * @throws IOException If an error occurs.
+     */
+    public static GameBoard load(RuleSet rules, File file, ProgressListener listener)
+            throws IOException, InvalidBoardException {
+        DataInputStream data = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
         try {
-            boardWidth = data.readInt();
-            boardHeight = data.readInt();
-
-            board = new boolean[boardWidth][boardHeight];
-
-            for (int y = 0; y < boardWidth; y++) {
-                for (int x = 0; x < boardHeight; x++) {
-                    setCell(x, y, data.readBoolean());
+            int w = data.readInt();
+            int h = data.readInt();
+            // check the size against the file before allocating the board
+            if (w < 0 || h < 0 || (long) w * h != file.length() - 8) {
+                throw new InvalidBoardException(String.format(
+                        "%s does not hold a %dx%d board", file, w, h));
+            }
+            GameBoard b = new GameBoard(rules, w, h);
+            
+            int rows = Math.max(1, CHUNK_CELLS / Math.max(w, 1));
+            byte[] buf = new byte[Math.min(rows, Math.max(h, 1)) * w];
+            for (int y0 = 0; y0 < h; y0 += rows) {
+                int y1 = Math.min(y0 + rows, h);
+                data.readFully(buf, 0, (y1 - y0) * w);
+                int i = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = 0; x < w; x++) {
+                        byte v = buf[i++];
+                        if ((v & ~1) != 0) {
+                            throw new InvalidBoardException(String.format(
+                                    "%s has an invalid cell at %d,%d", file, x, y));
+                        }
+                        b.board[x][y] = v != 0;
+                    }
                 }
+                reportProgress(listener, y1, h);
             }
+            if (data.read() >= 0)
+                throw new InvalidBoardException(file + " has trailing data");
+            return b;
+        } catch (EOFException e) {
+            throw new InvalidBoardException(file + " is truncated", e);
         } finally {
             data.close();
         }
     }
 
     /**
-     * Save the game board to a file
+     * Save the game board to a file.  The board is written to a temporary
+     * file which then replaces the target, so an existing file is never left
+     * half-written.
      * @param file The file to which to save the game board
      * @throws java.io.IOException If an error occurs
      */
     public void save(File file) throws IOException {
-        DataOutputStream data = new DataOutputStream(new FileOutputStream(file));
+        save(file, null);
+    }
+    
+    /**
+     * Save the game board to a file, reporting progress.  If the thread is
+     * interrupted the save is abandoned and any existing file is left as it
+     * was.
+     * @param file The file to which to save the game board
+     * @param listener Receives the number of rows written, or null.
+     * @throws InterruptedIOException If the thread is interrupted.
+     * @throws java.io.IOException If an error occurs
+     */
+    public void save(File file, ProgressListener listener) throws IOException {
+        writeCells(board, boardWidth, boardHeight, file, listener);
+    }
+    
+    /**
+     * Write cells to a board file, a chunk of rows at a time.
+     */
+    static void writeCells(boolean[][] cells, int w, int h, File file,
+            ProgressListener listener) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream s = new FileOutputStream(tmp);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(s));
+        boolean written = false;
         try {
-            data.writeInt(boardWidth);
-            data.writeInt(boardHeight);
+            data.writeInt(w);
+            data.writeInt(h);
             
-            for (int y = 0; y < boardHeight; y++) {
-                for (int x = 0; x < boardWidth; x++) {
-                    data.writeBoolean(getCell(x, y));
+            int rows = Math.max(1, CHUNK_CELLS / Math.max(w, 1));
+            byte[] buf = new byte[Math.min(rows, Math.max(h, 1)) * w];
+            for (int y0 = 0; y0 < h; y0 += rows) {
+                int y1 = Math.min(y0 + rows, h);
+                int i = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = 0; x < w; x++) {
+                        buf[i++] = (byte) (cells[x][y] ? 1 : 0);
+                    }
                 }
+                data.write(buf, 0, i);
+                reportProgress(listener, y1, h);
             }
+            data.flush();
+            s.getFD().sync();
+            written = true;
         } finally {
             data.close();
+            if (!written)
+                tmp.delete();
+        }
+        replaceFile(tmp, file);
+    }
+    
+    /**
+     * Report progress to a listener, then stop if the thread has been
+     * interrupted.
+     */
+    private static void reportProgress(ProgressListener listener, int done, int total)
+            throws InterruptedIOException {
+        if (listener != null)
+            listener.progress(done, total);
+        if (Thread.currentThread().isInterrupted())
+            throw new InterruptedIOException("Interrupted");
+    }
+    
+    /**
+     * Replace a file with another by renaming it.  Renaming over an existing
+     * file is atomic on POSIX systems; elsewhere the target may need to be
+     * deleted first.
+     * @param src The new file.
+     * @param dst The file to replace.
+     * @throws IOException If the file cannot be replaced.
+     */
+    static void replaceFile(File src, File dst) throws IOException {
+        if (!src.renameTo(dst)) {
+            dst.delete();
+            if (!src.renameTo(dst)) {
+                throw new IOException(
+                        String.format("Cannot rename %s to %s", src, dst));
+            }
         }
     }
     
@@ -130,11 +327,32 @@ public class GameBoard {
     }
     
     /**
-     * Sets the rule set to use
+     * Sets the rule set to use.  The rule set is compiled into a lookup table
+     * when it is first used, so it must always give the same answers.
      * @param rules
      */
     public void setRuleSet(RuleSet rules) {
         ruleSet = rules;
+        engineStale = true;
+    }
+    
+    /**
+     * Queries the neighborhood used to count living neighbors.
+     * @return The neighborhood
+     */
+    public Neighborhood getNeighborhood() {
+        return neighborhood;
+    }
+    
+    /**
+     * Sets the neighborhood used to count living neighbors.  Rules written
+     * for the standard neighborhood, such as Conway's, will generally not
+     * make sense with larger ones.
+     * @param n The neighborhood
+     */
+    public void setNeighborhood(Neighborhood n) {
+        neighborhood = n;
+        engineStale = true;
     }
     
     /**
@@ -170,37 +388,865 @@ public class GameBoard {
      * @param state The new state of the cell.
      */
     public void setCell(int x, int y, boolean state) {
+        unshare();
+        if (board[x][y] == state)
+            return;
         board[x][y] = state;
+        if (statsDirty)
+            return;
+        population += state ? 1 : -1;
+        if (state) {
+            if (minX == maxX) {
+                setBounds(x, x + 1, y, y + 1);
+            } else {
+                setBounds(Math.min(minX, x), Math.max(maxX, x + 1),
+                        Math.min(minY, y), Math.max(maxY, y + 1));
+            }
+        } else if (x == minX || x == maxX - 1 || y == minY || y == maxY - 1) {
+            // the box may shrink, which takes a scan to find out
+            statsDirty = true;
+        }
+    }
+    
+    /**
+     * Replace a column of cells.
+     * @param x The X-coordinate of the column.
+     * @param column The new cells, indexed by y.
+     */
+    void setColumn(int x, boolean[] column) {
+        unshare();
+        engineStale = true;
+        statsDirty = true;
+        System.arraycopy(column, 0, board[x], 0, boardHeight);
+    }
+
+    /**
+     * Replace a run of cells in a column.  Like {@link #setCell}, this keeps
+     * the population and bounding box up to date where it can rather than
+     * leaving them to be found by a scan.
+     * @param x The X-coordinate of the column.
+     * @param y The Y-coordinate of the first cell replaced.
+     * @param cells The array holding the new cells.
+     * @param offset The index in cells of the first new cell.
+     * @param length The number of cells to replace.
+     */
+    void setCells(int x, int y, boolean[] cells, int offset, int length) {
+        unshare();
+        boolean[] column = board[x];
+        if (!statsDirty) {
+            int change = 0;
+            int lo = boardHeight;
+            int hi = -1;
+            for (int k = 0; k < length; k++) {
+                boolean state = cells[offset + k];
+                int cy = y + k;
+                if (column[cy] == state)
+                    continue;
+                if (state) {
+                    change++;
+                    lo = Math.min(lo, cy);
+                    hi = cy;
+                } else {
+                    change--;
+                    if (x == minX || x == maxX - 1 || cy == minY || cy == maxY - 1) {
+                        // the box may shrink, which takes a scan to find out
+                        statsDirty = true;
+                    }
+                }
+            }
+            population += change;
+            if (hi >= 0 && !statsDirty) {
+                if (minX == maxX) {
+                    setBounds(x, x + 1, lo, hi + 1);
+                } else {
+                    setBounds(Math.min(minX, x), Math.max(maxX, x + 1),
+                            Math.min(minY, lo), Math.max(maxY, hi + 1));
+                }
+            }
+        }
+        System.arraycopy(cells, offset, column, y, length);
+    }
+    
+    /**
+     * Queries the generation number of the board.
+     * @return The number of generations computed since the board was created
+     *         (or since the generation was last set).
+     */
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Sets the generation number of the board, e.g. when resuming a run.
+     * @param g The generation number
+     */
+    public void setGeneration(long g) {
+        generation = g;
+    }
+    
+    /**
+     * Take a snapshot of the current state of the board, publishing it first
+     * if it has been edited.  This does not copy the board: the snapshot
+     * shares the board's cells, and the board copies them instead if it is
+     * edited while they are shared.  The snapshot is unaffected by anything
+     * later done to the board, so it may be read from another thread while
+     * the board keeps running.  It should be released when it is no longer
+     * needed, so that its cells can be reused.
+     * @return A snapshot of the board
+     */
+    public BoardSnapshot snapshot() {
+        publish();
+        return latest();
+    }
+    
+    /**
+     * Take a snapshot of the latest published generation.  Unlike the rest
+     * of this class, this may be called from any thread, even while another
+     * thread is stepping the board; it never blocks, and never sees a
+     * generation half computed.  Each generation computed by next() or
+     * advance() is published as soon as it is finished, but edits are only
+     * published by publish() or snapshot(), or when the board is next
+     * stepped.  The snapshot should be released when it is no longer needed.
+     * @return A snapshot of the latest published generation
+     */
+    public BoardSnapshot latest() {
+        while (true) {
+            Epoch e = latest;
+            // fails only if the board has moved on and given up e meanwhile
+            if (e.retain()) {
+                return new BoardSnapshot(e, boardWidth, boardHeight);
+            }
+        }
+    }
+    
+    /**
+     * Publish the board's current state, if it has changed since it was last
+     * published, so that latest() returns it.
+     */
+    public void publish() {
+        Epoch e = latest;
+        if (board == e.cells && generation == e.generation
+                && ruleSet == e.ruleSet && neighborhood == e.neighborhood) {
+            return;
+        }
+        // the published cells must not be shared with a new epoch
+        unshare();
+        latest = new Epoch(board, generation, ruleSet, neighborhood, pool);
+        e.release();
+    }
+    
+    /**
+     * Make sure the current board is not shared with a published epoch
+     * before it is modified in place.
+     */
+    private void unshare() {
+        if (board == latest.cells) {
+            boolean[][] copy = scratch();
+            liveColumns.remove(copy);
+            for (int x = 0; x < boardWidth; x++) {
+                System.arraycopy(board[x], 0, copy[x], 0, boardHeight);
+            }
+            board = copy;
+        }
+    }
+    
+    /**
+     * Get a buffer to compute the next generation into.  This is one given
+     * up by an earlier epoch if there is one, so a board which no reader is
+     * holding on to alternates between two buffers.
+     */
+    private boolean[][] scratch() {
+        boolean[][] buf = pool.pollFirst();
+        if (buf == null) {
+            buf = new boolean[boardWidth][boardHeight];
+        }
+        return buf;
+    }
+    
+    /**
+     * Make the next board current and publish it after computing some
+     * generations.
+     * @param next The buffer the generations were computed into.
+     * @param generations The number of generations computed.
+     */
+    private void swap(boolean[][] next, int generations) {
+        Epoch e = latest;
+        if (board != e.cells && pool.size() < Epoch.MAX_POOL) {
+            // unpublished edits were never visible to anyone
+            pool.offerFirst(board);
+        }
+        board = next;
+        generation += generations;
+        latest = new Epoch(board, generation, ruleSet, neighborhood, pool);
+        e.release();
+    }
+    
+    /**
+     * Kill every cell on the board.
+     */
+    public void clear() {
+        fillRegion(0, 0, boardWidth, boardHeight, false);
+    }
+    
+    /**
+     * Set every cell in a rectangle to the same value.  Parts of the
+     * rectangle outside the board are ignored.
+     * @param x The X-coordinate of the rectangle's corner.
+     * @param y The Y-coordinate of the rectangle's corner.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     * @param state The new state of the cells.
+     */
+    public void fillRegion(int x, int y, int w, int h, boolean state) {
+        unshare();
+        engineStale = true;
+        statsDirty = true;
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + w, boardWidth);
+        int y0 = Math.max(y, 0);
+        int y1 = Math.min(y + h, boardHeight);
+        if (y0 >= y1)
+            return;
+        for (int cx = x0; cx < x1; cx++) {
+            Arrays.fill(board[cx], y0, y1, state);
+        }
+    }
+    
+    /**
+     * Fill the whole board with random cells.
+     * @param density The probability that each cell is alive.
+     * @param rng The random number generator to use.
+     */
+    public void fillRandom(double density, Random rng) {
+        fillRandom(0, 0, boardWidth, boardHeight, density, rng);
+    }
+    
+    /**
+     * Fill a rectangle with random cells.  Parts of the rectangle outside the
+     * board are ignored.
+     * 
+     * Rather than drawing a random number for every cell, the rectangle is
+     * filled with the more common state and the gaps between cells of the
+     * rarer state are drawn from a geometric distribution, so sparse fills
+     * cost time in proportion to the cells set.  At a density of one half,
+     * each random number supplies 64 cells.
+     * @param x The X-coordinate of the rectangle's corner.
+     * @param y The Y-coordinate of the rectangle's corner.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     * @param density The probability that each cell is alive.
+     * @param rng The random number generator to use.
+     */
+    public void fillRandom(int x, int y, int w, int h, double density, Random rng) {
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid density %f", density));
+        }
+        int x0 = Math.max(x, 0);
+        int x1 = Math.min(x + w, boardWidth);
+        int y0 = Math.max(y, 0);
+        int y1 = Math.min(y + h, boardHeight);
+        if (x0 >= x1 || y0 >= y1)
+            return;
+        unshare();
+        engineStale = true;
+        statsDirty = true;
+        
+        if (density == 0.5) {
+            long bits = 0;
+            int left = 0;
+            for (int cx = x0; cx < x1; cx++) {
+                boolean[] column = board[cx];
+                for (int cy = y0; cy < y1; cy++) {
+                    if (left == 0) {
+                        bits = rng.nextLong();
+                        left = 64;
+                    }
+                    column[cy] = (bits & 1) != 0;
+                    bits >>>= 1;
+                    left--;
+                }
+            }
+            return;
+        }
+        
+        boolean rare = density < 0.5;
+        double p = rare ? density : 1 - density;
+        fillRegion(x0, y0, x1 - x0, y1 - y0, !rare);
+        if (p == 0)
+            return;
+        
+        // walk the rectangle column by column, skipping ahead to each cell
+        // of the rarer state
+        int rh = y1 - y0;
+        long cells = (long) (x1 - x0) * rh;
+        double logq = Math.log(1 - p);
+        long i = -1;
+        while (true) {
+            double gap = Math.floor(Math.log(1 - rng.nextDouble()) / logq);
+            if (gap >= cells - i - 1)
+                break;
+            i += (long) gap + 1;
+            board[x0 + (int) (i / rh)][y0 + (int) (i % rh)] = rare;
+        }
+    }
+    
+    /**
+     * Copy another board onto this one.  Parts of the other board falling
+     * outside this one are ignored.
+     * @param pattern The board to copy.
+     * @param x The X-coordinate at which to place the pattern's corner.
+     * @param y The Y-coordinate at which to place the pattern's corner.
+     * @param mode How to combine the pattern with this board's cells.
+     */
+    public void stamp(GameBoard pattern, int x, int y, BlitMode mode) {
+        blit(pattern, 0, 0, pattern.getWidth(), pattern.getHeight(), x, y, mode);
+    }
+    
+    /**
+     * Copy a rectangle of this board to another place on it, replacing the
+     * cells there.  The rectangles may overlap.
+     * @param sx The X-coordinate of the source rectangle's corner.
+     * @param sy The Y-coordinate of the source rectangle's corner.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     * @param dx The X-coordinate of the destination's corner.
+     * @param dy The Y-coordinate of the destination's corner.
+     */
+    public void copyRegion(int sx, int sy, int w, int h, int dx, int dy) {
+        blit(this, sx, sy, w, h, dx, dy, BlitMode.REPLACE);
+    }
+    
+    /**
+     * Copy a rectangle of a board onto this board.  Parts of the rectangle
+     * outside either board are ignored.  The source may be this board, and
+     * the rectangles may overlap.
+     * @param src The board to copy from.
+     * @param sx The X-coordinate of the source rectangle's corner.
+     * @param sy The Y-coordinate of the source rectangle's corner.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     * @param dx The X-coordinate of the destination's corner.
+     * @param dy The Y-coordinate of the destination's corner.
+     * @param mode How to combine the copied cells with this board's cells.
+     */
+    public void blit(GameBoard src, int sx, int sy, int w, int h,
+            int dx, int dy, BlitMode mode) {
+        // clip against the source board, then the destination board
+        if (sx < 0) { dx -= sx; w += sx; sx = 0; }
+        if (sy < 0) { dy -= sy; h += sy; sy = 0; }
+        w = Math.min(w, src.boardWidth - sx);
+        h = Math.min(h, src.boardHeight - sy);
+        if (dx < 0) { sx -= dx; w += dx; dx = 0; }
+        if (dy < 0) { sy -= dy; h += dy; dy = 0; }
+        w = Math.min(w, boardWidth - dx);
+        h = Math.min(h, boardHeight - dy);
+        if (w <= 0 || h <= 0)
+            return;
+        unshare();
+        engineStale = true;
+        statsDirty = true;
+        
+        boolean[][] from = src.board;
+        if (src == this && mode != BlitMode.REPLACE) {
+            // combining a region with an overlapping copy of itself would
+            // read cells that have already been changed
+            from = new boolean[w][];
+            for (int i = 0; i < w; i++) {
+                from[i] = Arrays.copyOfRange(board[sx + i], sy, sy + h);
+            }
+            sx = 0;
+            sy = 0;
+        }
+        
+        // when copying to the right within one board, go right to left so
+        // that no column is overwritten before it has been copied
+        boolean backwards = from == board && dx > sx;
+        for (int j = 0; j < w; j++) {
+            int i = backwards ? w - 1 - j : j;
+            boolean[] in = from[sx + i];
+            boolean[] out = board[dx + i];
+            switch (mode) {
+            case REPLACE:
+                System.arraycopy(in, sy, out, dy, h);
+                break;
+            case OR:
+                for (int k = 0; k < h; k++) {
+                    out[dy + k] |= in[sy + k];
+                }
+                break;
+            case XOR:
+                for (int k = 0; k < h; k++) {
+                    out[dy + k] ^= in[sy + k];
+                }
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Queries the policy choosing the engine that steps the board.
+     * @return The engine policy
+     */
+    public EnginePolicy getEnginePolicy() {
+        if (policy == null)
+            policy = new EnginePolicy();
+        return policy;
+    }
+    
+    /**
+     * Sets the policy choosing the engine that steps the board.
+     * @param p The engine policy
+     */
+    public void setEnginePolicy(EnginePolicy p) {
+        policy = p;
+        engineStale = true;
+    }
+    
+    /**
+     * Queries the engine that will compute the next generation.
+     * @return The engine
+     */
+    public LifeEngine getEngine() {
+        updateStats();
+        findWindow(stepLimit(1));
+        return currentEngine(windowEnd - windowStart);
+    }
+    
+    /**
+     * Forces the board to be stepped by a particular engine, rather than the
+     * one the policy would choose.
+     * @param e The engine, or null to let the policy choose again.
+     * @throws UnsupportedOperationException If the engine cannot run the
+     *         board's rules.
+     */
+    public void setEngine(LifeEngine e) {
+        if (e != null && !e.supports(ruleSet, neighborhood)) {
+            throw new UnsupportedOperationException(String.format(
+                    "%s engine cannot run %s with %s",
+                    e.getName(), ruleSet.getName(), neighborhood));
+        }
+        fixedEngine = e;
+        engineStale = true;
+    }
+    
+    /**
+     * Check whether the policy must be consulted before the next step,
+     * because the board has changed or has run long enough since it was last
+     * consulted.
+     */
+    private boolean selectionDue() {
+        return engine == null || engineStale
+                || sinceSelection >= getEnginePolicy().getInterval();
+    }
+    
+    /**
+     * Find how many generations the next step may compute: as many as asked
+     * for, unless the policy must be consulted again before then.
+     * @param n The most generations wanted.
+     */
+    private int stepLimit(int n) {
+        if (fixedEngine != null)
+            return n;
+        int since = selectionDue() ? 0 : sinceSelection;
+        return Math.min(n, Math.max(getEnginePolicy().getInterval() - since, 1));
+    }
+    
+    /**
+     * Find the columns the next step must compute.  Unless the rules bring
+     * cells to life from nothing, nothing can happen more than the
+     * neighborhood's radius from a living cell each generation, so only the
+     * columns that close to the bounding box are needed.  The bounding box
+     * must be up to date.
+     * @param generations The number of generations the step may compute.
+     */
+    private void findWindow(int generations) {
+        windowStart = 0;
+        windowEnd = boardWidth;
+        if (!birthOnZero()) {
+            long reach = (long) neighborhood.getRadius() * generations;
+            windowStart = minX == maxX ? 0 : (int) Math.max(minX - reach, 0);
+            windowEnd = minX == maxX ? 0 : (int) Math.min(maxX + reach, boardWidth);
+        }
+    }
+    
+    /**
+     * Get the engine to step the board with, consulting the policy if it is
+     * due.
+     * @param width The number of columns the engine will be given.
+     */
+    private LifeEngine currentEngine(int width) {
+        if (fixedEngine != null) {
+            if (engineStale && !fixedEngine.supports(ruleSet, neighborhood)) {
+                throw new UnsupportedOperationException(String.format(
+                        "%s engine cannot run %s with %s",
+                        fixedEngine.getName(), ruleSet.getName(), neighborhood));
+            }
+            engineStale = false;
+            return fixedEngine;
+        }
+        if (selectionDue()) {
+            engine = getEnginePolicy().select(ruleSet, neighborhood,
+                    width, boardHeight, getPopulation());
+            engineStale = false;
+            sinceSelection = 0;
+        }
+        return engine;
+    }
+    
+    /**
+     * Check whether the rules bring cells to life with no living neighbors,
+     * in which case the dead parts of the board cannot be skipped.
+     */
+    private boolean birthOnZero() {
+        return RuleTable.apply(ruleSet, 0);
     }
     
     /**
      * Computes the next state of the game board.
      */
     public void next() {
-        // Allocate a new board to hold the next state
-        boolean[][] nextBoard = new boolean[boardWidth][boardHeight];
+        step(1);
+    }
+    
+    /**
+     * Advances the game board by several generations.  The result is the
+     * same as calling next() n times, but engines which can compute several
+     * generations in one pass over the board are allowed to.
+     * @param n The number of generations to advance.
+     */
+    public void advance(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot advance %d generations", n));
+        }
+        while (n > 0) {
+            n -= step(n);
+        }
+    }
+    
+    /**
+     * Computes up to n generations in one step of the engine, publishes the
+     * result and updates the statistics.  The engine is only given the
+     * columns found by findWindow(), and the rest are cleared.
+     * @param n The most generations to compute.
+     * @return The number of generations computed.
+     */
+    private int step(int n) {
+        // stop in time to consult the policy again
+        int limit = stepLimit(n);
+        updateStats();
+        if (counting && !populationKnown) {
+            // births and deaths are found from the change in population
+            getPopulation();
+        }
+        findWindow(limit);
+        int x0 = windowStart;
+        int x1 = windowEnd;
+        // the policy weighs the engines by the columns actually stepped
+        LifeEngine e = currentEngine(x1 - x0);
         
-        // Ask the ruleset to compute the next board based on the neighborhood
-        // of each cell in the current board.
+        // Reuse an old generation's buffer to hold the next state
+        boolean[][] next = scratch();
+        if (living == null) {
+            living = new int[boardWidth];
+            changed = new int[boardWidth];
+        }
+        int k;
+        boolean counted = false;
+        if (x0 == x1) {
+            // a dead board stays dead
+            k = limit;
+        } else {
+            boolean[][] from = board;
+            boolean[][] to = next;
+            if (x0 > 0 || x1 < boardWidth) {
+                from = Arrays.copyOfRange(board, x0, x1);
+                to = Arrays.copyOfRange(next, x0, x1);
+            }
+            if (counting && e instanceof CountingEngine) {
+                k = ((CountingEngine) e).step(from, to, x1 - x0, boardHeight,
+                        ruleSet, neighborhood, limit, living, changed);
+                counted = true;
+            } else {
+                k = e.step(from, to, x1 - x0, boardHeight,
+                        ruleSet, neighborhood, limit);
+            }
+        }
+        // clear whatever the buffer held outside the columns just computed
+        int[] old = liveColumns.get(next);
+        int c0 = old == null ? 0 : old[0];
+        int c1 = old == null ? boardWidth : old[1];
+        for (int x = c0; x < Math.min(x0, c1); x++) {
+            Arrays.fill(next[x], false);
+        }
+        for (int x = Math.max(x1, c0); x < c1; x++) {
+            Arrays.fill(next[x], false);
+        }
+        liveColumns.put(next, new int[] { x0, x1 });
+        sinceSelection += k;
+        if (!counting) {
+            findBounds(next, x0, x1);
+        } else {
+            if (!counted)
+                countChanges(board, next, x0, x1);
+            updateCounts(next, x0, x1);
+        }
+        // Publish the new board; the old one is reused once nothing holds it
+        swap(next, k);
+        return k;
+    }
+    
+    /**
+     * Count the living and changed cells of a range of columns after a step,
+     * for an engine which did not count them itself.  The counts go in
+     * living and changed, indexed from the first column.
+     * @param before The cells before the step.
+     * @param after The cells after the step.
+     * @param x0 The first column to count.
+     * @param x1 The column after the last to count.
+     */
+    private void countChanges(boolean[][] before, boolean[][] after, int x0, int x1) {
+        for (int x = x0; x < x1; x++) {
+            boolean[] a = before[x];
+            boolean[] b = after[x];
+            int n = 0;
+            int c = 0;
+            for (int y = 0; y < boardHeight; y++) {
+                int was = a[y] ? 1 : 0;
+                int is = b[y] ? 1 : 0;
+                n += is;
+                c += was ^ is;
+            }
+            living[x - x0] = n;
+            changed[x - x0] = c;
+        }
+    }
+    
+    /**
+     * Recompute the statistics from the counts of a range of columns after a
+     * step.  The cells outside the range must be dead both before and after.
+     * @param after The cells after the step.
+     * @param x0 The first column that may have living cells.
+     * @param x1 The column after the last that may have living cells.
+     */
+    private void updateCounts(boolean[][] after, int x0, int x1) {
+        long pop = 0;
+        long diff = 0;
+        int bx0 = boardWidth;
+        int bx1 = 0;
+        int by0 = boardHeight;
+        int by1 = 0;
+        for (int x = x0; x < x1; x++) {
+            int n = living[x - x0];
+            pop += n;
+            diff += changed[x - x0];
+            if (n > 0) {
+                if (bx0 == boardWidth)
+                    bx0 = x;
+                bx1 = x + 1;
+                // only look as far as the box found so far
+                boolean[] b = after[x];
+                int y = 0;
+                while (y < by0 && !b[y])
+                    y++;
+                by0 = Math.min(by0, y);
+                y = boardHeight;
+                while (y > by1 && !b[y - 1])
+                    y--;
+                by1 = Math.max(by1, y);
+            }
+        }
+        // every change is a birth or a death, and the difference between
+        // them is the change in population
+        births = (diff + pop - population) / 2;
+        deaths = (diff - pop + population) / 2;
+        population = pop;
+        populationKnown = true;
+        changesKnown = true;
+        setBounds(bx0, bx1, by0, by1);
+    }
+    
+    /**
+     * Find the bounding box after a step without counting the cells.  Only
+     * the ends of each column are looked at, unless it is empty or nearly
+     * so.
+     * @param after The cells after the step.
+     * @param x0 The first column that may have living cells.
+     * @param x1 The column after the last that may have living cells.
+     */
+    private void findBounds(boolean[][] after, int x0, int x1) {
+        int bx0 = boardWidth;
+        int bx1 = 0;
+        int by0 = boardHeight;
+        int by1 = 0;
+        for (int x = x0; x < x1; x++) {
+            boolean[] b = after[x];
+            int y = 0;
+            while (y < boardHeight && !b[y])
+                y++;
+            if (y == boardHeight)
+                continue;
+            if (bx0 == boardWidth)
+                bx0 = x;
+            bx1 = x + 1;
+            by0 = Math.min(by0, y);
+            y = boardHeight;
+            while (y > by1 && !b[y - 1])
+                y--;
+            by1 = Math.max(by1, y);
+        }
+        setBounds(bx0, bx1, by0, by1);
+        populationKnown = false;
+        changesKnown = false;
+    }
+    
+    /**
+     * Recount the population and the bounding box, if an edit has made them
+     * unknown.
+     */
+    private void updateStats() {
+        if (!statsDirty)
+            return;
+        long pop = 0;
+        int bx0 = boardWidth;
+        int bx1 = 0;
+        int by0 = boardHeight;
+        int by1 = 0;
         for (int x = 0; x < boardWidth; x++) {
+            boolean[] column = board[x];
+            int n = 0;
             for (int y = 0; y < boardHeight; y++) {
-                int neighbors = countLivingNeighbors(x, y);
-                nextBoard[x][y] = ruleSet.applyRules(getCell(x, y), neighbors);
+                n += column[y] ? 1 : 0;
+            }
+            if (n > 0) {
+                pop += n;
+                if (bx0 == boardWidth)
+                    bx0 = x;
+                bx1 = x + 1;
+                int y = 0;
+                while (!column[y])
+                    y++;
+                by0 = Math.min(by0, y);
+                y = boardHeight;
+                while (!column[y - 1])
+                    y--;
+                by1 = Math.max(by1, y);
             }
         }
-        
-        // Replace the current board with the new board
-        board = nextBoard;
+        population = pop;
+        populationKnown = true;
+        setBounds(bx0, bx1, by0, by1);
+        statsDirty = false;
+    }
+    
+    /**
+     * Set the bounding box, making it empty if x0 is not less than x1.
+     */
+    private void setBounds(int x0, int x1, int y0, int y1) {
+        if (x0 >= x1) {
+            x0 = x1 = y0 = y1 = 0;
+        }
+        minX = x0;
+        maxX = x1;
+        minY = y0;
+        maxY = y1;
+    }
+    
+    /**
+     * Queries whether the board counts its population, births and deaths as
+     * it steps.
+     * @return true if the board is counting
+     */
+    public boolean isCounting() {
+        return counting;
+    }
+    
+    /**
+     * Set whether the board counts its population, births and deaths as it
+     * steps.  Counting takes roughly a quarter as long again as stepping a
+     * busy board, so boards which are run hard and seldom asked can turn it
+     * off.  The population and bounding box are still available either way,
+     * but without counting the population takes a scan of the bounding box.
+     * @param c true to count (the default)
+     */
+    public void setCounting(boolean c) {
+        counting = c;
+    }
+    
+    /**
+     * Queries the number of living cells.  While the board is counting,
+     * this is kept up to date as the board is stepped and cells are set, so
+     * it only has to be counted again after other edits.
+     * @return The population
+     */
+    public long getPopulation() {
+        updateStats();
+        if (!populationKnown) {
+            long n = 0;
+            for (int x = minX; x < maxX; x++) {
+                boolean[] column = board[x];
+                for (int y = minY; y < maxY; y++) {
+                    n += column[y] ? 1 : 0;
+                }
+            }
+            population = n;
+            populationKnown = true;
+        }
+        return population;
+    }
+    
+    /**
+     * Queries the number of cells which came to life in the last step.  That
+     * is the last generation computed by next(), or by advance() when the
+     * engine computes a generation at a time; engines computing several
+     * generations at once are compared before and after them all.  Editing
+     * the board does not change the count.
+     * @return The number of cells born
+     * @throws IllegalStateException If the board was not counting.
+     */
+    public long getBirths() {
+        if (!changesKnown)
+            throw new IllegalStateException("The board is not counting births");
+        return births;
+    }
+    
+    /**
+     * Queries the number of cells which died in the last step (see
+     * getBirths()).
+     * @return The number of cells which died
+     * @throws IllegalStateException If the board was not counting.
+     */
+    public long getDeaths() {
+        if (!changesKnown)
+            throw new IllegalStateException("The board is not counting deaths");
+        return deaths;
+    }
+    
+    /**
+     * Queries the smallest rectangle holding every living cell.
+     * @return The bounding box, or null if no cell is alive.
+     */
+    public Rectangle getBoundingBox() {
+        updateStats();
+        if (minX == maxX)
+            return null;
+        return new Rectangle(minX, minY, maxX - minX, maxY - minY);
     }
     
     /**
      * Counts the living neighbors of a cell.  The edge of the board is
-     * considered to be dead.
+     * considered to be dead.  Stepping the board does not use this, but it
+     * is kept as the simple reference for what the engines compute.
      * @param x The X-coordinate of the cell of interest.
      * @param y The Y-coordinate of the cell of interest.
      * @return The number of living neighbors of the cell (x,y).
      */
     int countLivingNeighbors(int x, int y) {
+        if (!neighborhood.isStandard()) {
+            return countLargeNeighbors(x, y);
+        }
+        
         int n = 0;
         
         // Loop over the neighborhood, counting neighbors.
@@ -218,4 +1264,16 @@ public class GameBoard {
         
         return n;
     }
+    
+    /**
+     * Counts the living neighbors of a cell in a non-standard neighborhood
+     * by visiting every cell of the neighborhood.
+     * @param x The X-coordinate of the cell of interest.
+     * @param y The Y-coordinate of the cell of interest.
+     * @return The number of living neighbors of the cell (x,y).
+     */
+    private int countLargeNeighbors(int x, int y) {
+        return ReferenceEngine.countNeighbors(board, boardWidth, boardHeight,
+                neighborhood, x, y);
+    }
 }
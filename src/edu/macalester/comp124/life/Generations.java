@@ -0,0 +1,97 @@
+package edu.macalester.comp124.life;
+
+/**
+ * GenerationsRuleSet implementing the "Generations" family of rules.
+ *
+ * A living cell survives if its neighbor count is one of the survival counts;
+ * otherwise it starts to die, moving through states 2, 3, ... until it
+ * reaches the last state and becomes dead again.  A dead cell comes to life
+ * if its neighbor count is one of the birth counts.  Dying cells are not
+ * counted as neighbors and cannot come back to life.
+ *
+ * Rules are written in the usual survival/birth/states form, so Conway's
+ * rules are "23/3/2" and Brian's Brain is "/2/3".
+ */
+public class Generations implements GenerationsRuleSet {
+
+    private String name;
+    private boolean[] survive = new boolean[9];
+    private boolean[] birth = new boolean[9];
+    private int states;
+
+    /**
+     * Create a Generations rule set from its rule string.
+     * @param name The name of the rule set.
+     * @param rule The rule in survival/birth/states form, e.g. "345/2/4".
+     */
+    public Generations(String name, String rule) {
+        this.name = name;
+        String[] parts = rule.split("/", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid Generations rule '%s'", rule));
+        }
+        parseCounts(parts[0], survive, rule);
+        parseCounts(parts[1], birth, rule);
+        try {
+            states = Integer.parseInt(parts[2].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid Generations rule '%s'", rule), e);
+        }
+        if (states < 2 || states > 256) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid state count in rule '%s'", rule));
+        }
+    }
+
+    private static void parseCounts(String digits, boolean[] counts, String rule) {
+        for (char c : digits.trim().toCharArray()) {
+            if (c < '0' || c > '8') {
+                throw new IllegalArgumentException(
+                        String.format("Invalid Generations rule '%s'", rule));
+            }
+            counts[c - '0'] = true;
+        }
+    }
+
+    /**
+     * Create Brian's Brain: cells are born with exactly 2 neighbors and
+     * always die after one generation.
+     */
+    public static Generations briansBrain() {
+        return new Generations("Brian's Brain", "/2/3");
+    }
+
+    /**
+     * Create Star Wars, a four-state rule with long-lived spaceships.
+     */
+    public static Generations starWars() {
+        return new Generations("Star Wars", "345/2/4");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStateCount() {
+        return states;
+    }
+
+    /**
+     * Applies the Generations rules.
+     *
+     * @param state         The current state of the cell.
+     * @param neighborCount The number of living neighbors of the cell.
+     * @return The state of the cell in the next generation.
+     */
+    public int applyRules(int state, int neighborCount) {
+        if (state == 0) {
+            return birth[neighborCount] ? 1 : 0;
+        } else if (state == 1 && survive[neighborCount]) {
+            return 1;
+        } else {
+            return (state + 1) % states;
+        }
+    }
+}
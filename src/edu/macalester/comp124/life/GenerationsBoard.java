@@ -0,0 +1,219 @@
+package edu.macalester.comp124.life;
+
+import java.util.Arrays;
+
+/**
+ * Class implementing a Life board whose cells have more than two states.
+ *
+ * This class uses a GenerationsRuleSet to implement a non-wrapping board,
+ * bordered by dead cells, like GameBoard.  Cells are packed into 64-bit
+ * words, using the smallest of 1, 2, 4 or 8 bits per cell that can hold all
+ * of the rule set's states, so a four-state board takes a quarter of the
+ * memory of a GameBoard.  Two-state rules such as Conway's should still use
+ * GameBoard.
+ */
+public class GenerationsBoard {
+
+    /** The board's width */
+    private int boardWidth;
+    /** The board's height */
+    private int boardHeight;
+    /** The rule set to use */
+    private GenerationsRuleSet ruleSet;
+
+    /** The number of bits used by each cell */
+    private int cellBits;
+    /** log2 of the number of cells in each word */
+    private int cellShift;
+    /** Mask selecting one cell's bits */
+    private long cellMask;
+
+    /** The current game board, as packed columns */
+    private long[][] board;
+    /** The buffer the next generation is computed into */
+    private long[][] nextBoard;
+    /** The next state for each state and living neighbor count */
+    private int[][] transitions;
+
+    /**
+     * Constructs a game board for play.
+     * @param rules The ruleset to use
+     * @param width The board width
+     * @param height The board height
+     */
+    public GenerationsBoard(GenerationsRuleSet rules, int width, int height) {
+        boardWidth = width;
+        boardHeight = height;
+        ruleSet = rules;
+
+        int states = rules.getStateCount();
+        cellBits = 1;
+        while ((1 << cellBits) < states) {
+            cellBits *= 2;
+        }
+        cellShift = 6 - Integer.numberOfTrailingZeros(cellBits);
+        cellMask = (1L << cellBits) - 1;
+
+        int words = (height + (1 << cellShift) - 1) >> cellShift;
+        board = new long[width][words];
+        nextBoard = new long[width][words];
+
+        transitions = new int[states][9];
+        for (int s = 0; s < states; s++) {
+            for (int n = 0; n <= 8; n++) {
+                transitions[s][n] = rules.applyRules(s, n);
+            }
+        }
+    }
+
+    /**
+     * Queries the rule set in use
+     * @return The rule set
+     */
+    public GenerationsRuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * Queries the board's width.
+     * @return The width of the game board
+     */
+    public int getWidth() {
+        return boardWidth;
+    }
+
+    /**
+     * Queries the board's height.
+     * @return The height of the game board
+     */
+    public int getHeight() {
+        return boardHeight;
+    }
+
+    /**
+     * Queries the number of bits used to store each cell.
+     * @return The bits per cell: 1, 2, 4 or 8.
+     */
+    public int getBitsPerCell() {
+        return cellBits;
+    }
+
+    /**
+     * Retrieve the state of a particular cell.
+     * @param x The X-coordinate of the cell.
+     * @param y The Y-coordinate of the cell.
+     * @return The cell's state
+     */
+    public int getCell(int x, int y) {
+        checkRow(y);
+        long word = board[x][y >> cellShift];
+        return (int) ((word >>> ((y & ((1 << cellShift) - 1)) * cellBits)) & cellMask);
+    }
+
+    /**
+     * Set the state of a particular cell.
+     * @param x The X-coordinate of the cell.
+     * @param y The Y-coordinate of the cell.
+     * @param state The new state of the cell.
+     */
+    public void setCell(int x, int y, int state) {
+        checkRow(y);
+        if (state < 0 || state >= ruleSet.getStateCount()) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid cell state %d", state));
+        }
+        int shift = (y & ((1 << cellShift) - 1)) * cellBits;
+        long[] column = board[x];
+        int w = y >> cellShift;
+        column[w] = (column[w] & ~(cellMask << shift)) | ((long) state << shift);
+    }
+
+    /**
+     * Rows share words, so an out-of-range row would not otherwise fail.
+     */
+    private void checkRow(int y) {
+        if (y < 0 || y >= boardHeight)
+            throw new ArrayIndexOutOfBoundsException(y);
+    }
+
+    /**
+     * Computes the next state of the game board.
+     *
+     * Only living cells are counted, so each column is first reduced to a
+     * count of the living cells in each vertical run of three; the neighbor
+     * count of a cell is then the sum of three of those, less the cell itself.
+     */
+    public void next() {
+        byte[] states = new byte[boardHeight];
+        byte[] left = new byte[boardHeight];
+        byte[] center = new byte[boardHeight];
+        byte[] right = new byte[boardHeight];
+        byte[] nextStates = new byte[boardHeight];
+
+        if (boardWidth > 0) {
+            unpack(board[0], states);
+            columnSums(states, center);
+        }
+        for (int x = 0; x < boardWidth; x++) {
+            if (x + 1 < boardWidth) {
+                unpack(board[x + 1], nextStates);
+                columnSums(nextStates, right);
+            } else {
+                Arrays.fill(right, (byte) 0);
+            }
+
+            long[] out = nextBoard[x];
+            int perWord = 1 << cellShift;
+            for (int w = 0; w < out.length; w++) {
+                long word = 0;
+                int y0 = w << cellShift;
+                int y1 = Math.min(y0 + perWord, boardHeight);
+                for (int y = y0; y < y1; y++) {
+                    int s = states[y] & 0xff;
+                    int n = left[y] + center[y] + right[y] - (s == 1 ? 1 : 0);
+                    word |= (long) transitions[s][n] << ((y - y0) * cellBits);
+                }
+                out[w] = word;
+            }
+
+            // slide the window one column to the right
+            byte[] t = left;
+            left = center;
+            center = right;
+            right = t;
+            t = states;
+            states = nextStates;
+            nextStates = t;
+        }
+
+        long[][] old = board;
+        board = nextBoard;
+        nextBoard = old;
+    }
+
+    /**
+     * Unpack a column of cells into one state per byte.
+     */
+    private void unpack(long[] column, byte[] states) {
+        int perWord = 1 << cellShift;
+        for (int y = 0; y < boardHeight; y++) {
+            long word = column[y >> cellShift];
+            states[y] = (byte) ((word >>> ((y & (perWord - 1)) * cellBits)) & cellMask);
+        }
+    }
+
+    /**
+     * Count the living cells in each vertical run of three cells of a column.
+     */
+    private static void columnSums(byte[] states, byte[] sums) {
+        int n = states.length;
+        for (int y = 0; y < n; y++) {
+            int s = states[y] == 1 ? 1 : 0;
+            if (y > 0 && states[y - 1] == 1)
+                s++;
+            if (y + 1 < n && states[y + 1] == 1)
+                s++;
+            sums[y] = (byte) s;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package edu.macalester.comp124.life;
+
+/**
+ * This interface defines rules for automata whose cells have more than two
+ * states, such as the "Generations" family (Brian's Brain, Star Wars, ...).
+ *
+ * State 0 is dead and state 1 is alive; only living cells are counted as
+ * neighbors.  The meaning of the remaining states is up to the rules, but
+ * typically they are the stages of a dying cell.
+ */
+public interface GenerationsRuleSet {
+
+    /**
+     * Obtain the name of a rule set.
+     * @return The rule set's name
+     */
+    public String getName();
+
+    /**
+     * Obtain the number of states a cell can be in.
+     * @return The number of states, at least 2.
+     */
+    public int getStateCount();
+
+    /**
+     * Apply the rules described by this rule set.
+     * @param state The current state of the cell.
+     * @param neighborCount The number of living (state 1) neighbors.
+     * @return The state of the cell in the next generation.
+     */
+    public int applyRules(int state, int neighborCount);
+}
@@ -0,0 +1,210 @@
+package edu.macalester.comp124.life;
+
+/**
+ * PatternRuleSet implementing isotropic non-totalistic rules.
+ *
+ * Isotropic rules look at the shape formed by a cell's living neighbors, up
+ * to rotation and reflection.  They are written in Hensel notation: each
+ * neighbor count in the birth or survival list may be followed by letters
+ * naming the shapes it applies to, or by a minus sign and the shapes it does
+ * not apply to.  "B3/S23" is Conway's rules; "B2-a/S12" is born with any two
+ * neighbors except two adjacent ones, and survives with one or two.
+ */
+public class Isotropic implements PatternRuleSet {
+
+    /**
+     * The letters naming the shapes with 1 to 4 neighbors.  The shapes with
+     * 5 to 7 neighbors are the complements of those with 3 to 1, and use the
+     * same letters.
+     */
+    private static final String[] LETTERS = {
+        "ce", "ceaikn", "ceaiknjqry", "ceaiknjqrytwz"
+    };
+
+    /**
+     * One pattern of each shape named in LETTERS, in the same order, using
+     * the bit layout of PatternRuleSet.
+     */
+    private static final int[][] SHAPES = {
+        {1, 2},
+        {5, 10, 3, 40, 33, 68},
+        {69, 42, 11, 7, 98, 13, 14, 70, 41, 97},
+        {325, 170, 15, 45, 99, 71, 106, 102, 43, 101, 105, 78, 108}
+    };
+
+    private String name;
+    private String rule;
+    private boolean[] table = new boolean[RuleTable.SIZE];
+
+    /**
+     * Create a rule set from a rule in Hensel notation.
+     * @param name The name of the rule set.
+     * @param rule The rule, e.g. "B2-a/S12".
+     */
+    public Isotropic(String name, String rule) {
+        this.name = name;
+        this.rule = rule;
+        String[] parts = rule.toUpperCase().split("/");
+        if (parts.length != 2)
+            throw invalid(rule);
+        boolean sawB = false, sawS = false;
+        for (String part : parts) {
+            part = part.trim();
+            if (part.startsWith("B") && !sawB) {
+                parse(rule, part.substring(1).toLowerCase(), false);
+                sawB = true;
+            } else if (part.startsWith("S") && !sawS) {
+                parse(rule, part.substring(1).toLowerCase(), true);
+                sawS = true;
+            } else {
+                throw invalid(rule);
+            }
+        }
+    }
+
+    private static IllegalArgumentException invalid(String rule) {
+        return new IllegalArgumentException(
+                String.format("Invalid isotropic rule '%s'", rule));
+    }
+
+    /**
+     * Parse the birth or survival half of a rule and mark its patterns in
+     * the table.
+     */
+    private void parse(String rule, String spec, boolean survive) {
+        int i = 0;
+        while (i < spec.length()) {
+            char c = spec.charAt(i++);
+            if (c < '0' || c > '8')
+                throw invalid(rule);
+            int count = c - '0';
+
+            boolean negate = i < spec.length() && spec.charAt(i) == '-';
+            if (negate)
+                i++;
+            int start = i;
+            while (i < spec.length() && Character.isLetter(spec.charAt(i))) {
+                i++;
+            }
+            String letters = spec.substring(start, i);
+            if (negate && letters.isEmpty())
+                throw invalid(rule);
+
+            String valid = lettersFor(count);
+            for (char l : letters.toCharArray()) {
+                if (valid.indexOf(l) < 0)
+                    throw invalid(rule);
+            }
+            if (letters.isEmpty()) {
+                mark(count, -1, survive);
+            } else {
+                for (int k = 0; k < valid.length(); k++) {
+                    boolean listed = letters.indexOf(valid.charAt(k)) >= 0;
+                    if (listed != negate)
+                        mark(count, k, survive);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the letters naming the shapes with a number of neighbors.
+     */
+    private static String lettersFor(int count) {
+        if (count == 0 || count == 8)
+            return "";
+        return LETTERS[Math.min(count, 8 - count) - 1];
+    }
+
+    /**
+     * Mark the patterns with a neighbor count and shape as giving a living
+     * cell.
+     * @param count The number of neighbors.
+     * @param shape The index of the shape's letter, or -1 for every shape.
+     * @param survive true to mark living cells, false to mark dead ones.
+     */
+    private void mark(int count, int shape, boolean survive) {
+        for (int p = 0; p < RuleTable.SIZE; p++) {
+            if (((p & RuleTable.CENTER) != 0) != survive)
+                continue;
+            int neighbors = p & RuleTable.NEIGHBORS;
+            if (Integer.bitCount(neighbors) != count)
+                continue;
+            if (shape < 0 || shapeOf(neighbors) == shape)
+                table[p] = true;
+        }
+    }
+
+    /**
+     * Find which shape a set of neighbors forms.
+     * @param neighbors The neighbors as a pattern without the center bit.
+     * @return The index of the shape's letter for its neighbor count.
+     */
+    static int shapeOf(int neighbors) {
+        int count = Integer.bitCount(neighbors);
+        if (count == 0 || count == 8)
+            return 0;
+        int key = count <= 4 ? neighbors : neighbors ^ RuleTable.NEIGHBORS;
+        int[] shapes = SHAPES[Math.min(count, 8 - count) - 1];
+        for (int t = 0; t < 8; t++) {
+            int image = transform(key, t);
+            for (int k = 0; k < shapes.length; k++) {
+                if (shapes[k] == image)
+                    return k;
+            }
+        }
+        throw new IllegalStateException("Unknown neighborhood shape " + neighbors);
+    }
+
+    /**
+     * Apply one of the eight rotations and reflections of the square to a
+     * pattern.
+     * @param pattern The pattern.
+     * @param t The transformation: bit 0 reflects, bits 1-2 count quarter
+     *          turns.
+     * @return The transformed pattern.
+     */
+    static int transform(int pattern, int t) {
+        int result = 0;
+        for (int bit = 0; bit < 9; bit++) {
+            if ((pattern & (1 << bit)) == 0)
+                continue;
+            int r = bit / 3;
+            int c = bit % 3;
+            if ((t & 1) != 0)
+                c = 2 - c;
+            for (int q = 0; q < (t >> 1); q++) {
+                int nr = c;
+                c = 2 - r;
+                r = nr;
+            }
+            result |= 1 << (r * 3 + c);
+        }
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Queries the rule the rule set was created from.
+     * @return The rule, e.g. "B2-a/S12".
+     */
+    public String getRule() {
+        return rule;
+    }
+
+    public boolean applyPattern(int pattern) {
+        return table[pattern];
+    }
+
+    /**
+     * Isotropic rules cannot be applied to a neighbor count alone.
+     * @throws IllegalStateException always
+     */
+    public boolean applyRules(boolean value, int neighborCount) {
+        throw new IllegalStateException(
+                "Isotropic rules depend on the arrangement of neighbors");
+    }
+}
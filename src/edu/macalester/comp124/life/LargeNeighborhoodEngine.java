@@ -0,0 +1,54 @@
+package edu.macalester.comp124.life;
+
+/**
+ * Engine for neighborhoods other than the standard one, such as those of
+ * Larger than Life rules.
+ *
+ * Counting each neighborhood cell by cell would cost O(r^2) per cell, so the
+ * counts come from a NeighborhoodCounter a row at a time instead.  The board
+ * only hands over the columns near its living cells, which widen as a
+ * pattern grows, so the counter is made with room to spare rather than
+ * being replaced every generation.
+ */
+public class LargeNeighborhoodEngine implements LifeEngine {
+
+    /** The counter, kept between generations to reuse its tables */
+    private NeighborhoodCounter counter;
+    /** The counts for one row */
+    private int[] counts;
+
+    public String getName() {
+        return "Large neighborhood";
+    }
+
+    public boolean supports(RuleSet rules, Neighborhood neighborhood) {
+        return RuleTable.countsOnly(rules);
+    }
+
+    public double cost(RuleSet rules, Neighborhood neighborhood,
+            int width, int height, long population) {
+        return 20.0 * width * height;
+    }
+
+    public int step(boolean[][] src, boolean[][] dst, int width, int height,
+            RuleSet rules, Neighborhood neighborhood, int generations) {
+        if (counter == null || !counter.fits(neighborhood, width, height)) {
+            int capacity = width;
+            if (counter != null && counter.fits(neighborhood, 0, height))
+                capacity = Math.max(width, counter.getCapacity() * 3 / 2);
+            counter = new NeighborhoodCounter(neighborhood, capacity, height);
+            counts = new int[capacity];
+        }
+        counter.load(src, width);
+
+        for (int y = 0; y < height; y++) {
+            counter.countRow(y, counts);
+            for (int x = 0; x < width; x++) {
+                boolean alive = src[x][y];
+                int neighbors = alive ? counts[x] - 1 : counts[x];
+                dst[x][y] = rules.applyRules(alive, neighbors);
+            }
+        }
+        return 1;
+    }
+}
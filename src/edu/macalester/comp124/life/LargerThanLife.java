@@ -0,0 +1,147 @@
+package edu.macalester.comp124.life;
+
+/**
+ * RuleSet implementing "Larger than Life" range rules.
+ *
+ * A living cell survives if its neighbor count lies within the survival
+ * range, and a dead cell comes to life if its count lies within the birth
+ * range.  Rules are written in the form used by Golly, e.g. Bosco's Rule is
+ * "R5,C0,M1,S34..58,B34..45,NM".  Only two-state rules (C0 or C2) are
+ * supported.
+ *
+ * These rules are meant to be used with their own neighborhood, so the board
+ * must be given getNeighborhood() as well as the rule set.
+ */
+public class LargerThanLife implements RuleSet {
+
+    private String name;
+    private String rule;
+    private Neighborhood neighborhood;
+    private boolean includeMiddle;
+    private int surviveMin, surviveMax;
+    private int birthMin, birthMax;
+
+    /**
+     * Create a rule set from a rule string.
+     * @param name The name of the rule set.
+     * @param rule The rule, e.g. "R5,C0,M1,S34..58,B34..45,NM".
+     */
+    public LargerThanLife(String name, String rule) {
+        this.name = name;
+        this.rule = rule;
+        int radius = 1;
+        Neighborhood.Type type = Neighborhood.Type.MOORE;
+        boolean sawS = false, sawB = false;
+
+        for (String part : rule.toUpperCase().split(",")) {
+            part = part.trim();
+            if (part.length() < 2)
+                throw invalid(rule);
+            String value = part.substring(1);
+            try {
+                switch (part.charAt(0)) {
+                case 'R':
+                    radius = Integer.parseInt(value);
+                    break;
+                case 'C':
+                    int states = Integer.parseInt(value);
+                    if (states > 2)
+                        throw invalid(rule);
+                    break;
+                case 'M':
+                    includeMiddle = Integer.parseInt(value) != 0;
+                    break;
+                case 'S':
+                    int[] s = parseRange(value, rule);
+                    surviveMin = s[0];
+                    surviveMax = s[1];
+                    sawS = true;
+                    break;
+                case 'B':
+                    int[] b = parseRange(value, rule);
+                    birthMin = b[0];
+                    birthMax = b[1];
+                    sawB = true;
+                    break;
+                case 'N':
+                    if (value.equals("M"))
+                        type = Neighborhood.Type.MOORE;
+                    else if (value.equals("N"))
+                        type = Neighborhood.Type.VON_NEUMANN;
+                    else if (value.equals("H"))
+                        type = Neighborhood.Type.HEXAGONAL;
+                    else
+                        throw invalid(rule);
+                    break;
+                default:
+                    throw invalid(rule);
+                }
+            } catch (NumberFormatException e) {
+                throw invalid(rule);
+            }
+        }
+        if (!sawS || !sawB)
+            throw invalid(rule);
+        neighborhood = new Neighborhood(type, radius);
+    }
+
+    private static int[] parseRange(String value, String rule) {
+        int dots = value.indexOf("..");
+        if (dots < 0)
+            throw invalid(rule);
+        return new int[] {
+            Integer.parseInt(value.substring(0, dots)),
+            Integer.parseInt(value.substring(dots + 2))
+        };
+    }
+
+    private static IllegalArgumentException invalid(String rule) {
+        return new IllegalArgumentException(
+                String.format("Invalid Larger than Life rule '%s'", rule));
+    }
+
+    /**
+     * Create Bosco's Rule, the best-known Larger than Life rule.
+     */
+    public static LargerThanLife bosco() {
+        return new LargerThanLife("Bosco's Rule", "R5,C0,M1,S34..58,B34..45,NM");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Queries the rule the rule set was created from.
+     * @return The rule, e.g. "R5,C0,M1,S34..58,B34..45,NM".
+     */
+    public String getRule() {
+        return rule;
+    }
+
+    /**
+     * Queries the neighborhood these rules are written for.
+     * @return The neighborhood
+     */
+    public Neighborhood getNeighborhood() {
+        return neighborhood;
+    }
+
+    /**
+     * Applies the rules.
+     *
+     * @param isAlive       The value of the current cell (true = alive).
+     * @param neighborCount The number of living neighbors of the cell.
+     * @return true if the cell should be alive in the next generation.
+     */
+    public boolean applyRules(boolean isAlive, int neighborCount) {
+        int n = neighborCount;
+        if (includeMiddle && isAlive)
+            n++;
+        if (isAlive) {
+            return n >= surviveMin && n <= surviveMax;
+        } else {
+            return n >= birthMin && n <= birthMax;
+        }
+    }
+}
@@ -5,8 +5,7 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.BitSet;
 
 /**
  * JComponent to display and manipulate the edu.macalester.comp124.life grid.
@@ -21,7 +20,10 @@ public class LifeComponent extends JComponent {
     private static final int GUTTER_SIZE = 1;
     
     private GameBoard board;
-    private Set<Point> foundCells = new HashSet<Point>();
+    /** Whether clicking toggles cells */
+    private boolean editable = true;
+    /** The cells already toggled by the current drag, indexed by x*height+y */
+    private BitSet foundCells = new BitSet();
     
     /**
      * Create a new Life display panel with a board.
@@ -86,16 +88,48 @@ public class LifeComponent extends JComponent {
     }
     
     /**
-     * Paint the edu.macalester.comp124.life board on the screen.
+     * Queries whether the board can be edited by clicking on it.
+     * @return true if clicking toggles cells
+     */
+    public boolean isEditable() {
+        return editable;
+    }
+    
+    /**
+     * Set whether the board can be edited by clicking on it.  A board being
+     * changed by another thread should not be.
+     * @param e true if clicking should toggle cells
+     */
+    public void setEditable(boolean e) {
+        editable = e;
+    }
+    
+    /**
+     * Paint the edu.macalester.comp124.life board on the screen.  This paints
+     * the latest generation published by the board, so it never sees one half
+     * computed, even if the board is being stepped on another thread.
      */
     public void paintComponent(Graphics g) {
         if (board == null)
             return;     // refuse to paint a null board
         
-        Graphics2D g2 = (Graphics2D) g;
+        BoardSnapshot snap = board.latest();
+        try {
+            paintBoard((Graphics2D) g, snap);
+        } finally {
+            snap.release();
+        }
+    }
+    
+    /**
+     * Paint a snapshot of the board.
+     * @param g2 The graphics to paint with
+     * @param snap The snapshot
+     */
+    private void paintBoard(Graphics2D g2, BoardSnapshot snap) {
         g2.setPaint(Color.WHITE);
-        int bw = cellDistance(board.getWidth());
-        int bh = cellDistance(board.getHeight());
+        int bw = cellDistance(snap.getWidth());
+        int bh = cellDistance(snap.getHeight());
         for (int x = 0; x < bw; x += CELL_SIZE + GUTTER_SIZE) {
             g2.fillRect(x, 0, GUTTER_SIZE, bh);
         }
@@ -105,12 +139,13 @@ public class LifeComponent extends JComponent {
         
         g2.setPaint(Color.BLACK);
         
-        for (int x = 0; x < board.getWidth(); x++) {
+        for (int x = 0; x < snap.getWidth(); x++) {
             int xpos = cellDistance(x);
+            boolean[] column = snap.column(x);
             
-            for (int y = 0; y < board.getHeight(); y++) {
+            for (int y = 0; y < snap.getHeight(); y++) {
                 int ypos = cellDistance(y);
-                if (board.getCell(x, y)) {
+                if (column[y]) {
                     g2.fillRect(xpos, ypos, CELL_SIZE, CELL_SIZE);
                 }
             }
@@ -122,16 +157,17 @@ public class LifeComponent extends JComponent {
      * @param pt The point at which the cell is to be toggled.
      */
     public void toggleCellAtPoint(Point pt) {
+        if (board == null || !editable)
+            return;
         int cx = cellFromDistance(pt.x);
         int cy = cellFromDistance(pt.y);
-        if (cx >= 0 && cy >= 0) {
-            Point cpt = new Point(cx, cy);
-            if (!foundCells.contains(cpt)) {
-                foundCells.add(cpt);
-                try {
-                    board.setCell(cx, cy, !board.getCell(cx, cy));
-                } catch (ArrayIndexOutOfBoundsException e) {
-                }
+        if (cx >= 0 && cy >= 0
+                && cx < board.getWidth() && cy < board.getHeight()) {
+            int index = cx * board.getHeight() + cy;
+            if (!foundCells.get(index)) {
+                foundCells.set(index);
+                board.setCell(cx, cy, !board.getCell(cx, cy));
+                board.publish();
                 repaint();
             }
         }
@@ -0,0 +1,64 @@
+package edu.macalester.comp124.life;
+
+/**
+ * An algorithm for computing generations of a GameBoard.
+ *
+ * A GameBoard does not step itself: it hands its cells to an engine, chosen
+ * by an EnginePolicy from the engines registered with java.util.ServiceLoader
+ * (see META-INF/services/edu.macalester.comp124.life.LifeEngine).  Engines
+ * must have a public no-argument constructor.  Each board creates its own
+ * engines, so an engine may keep caches between calls, but it must compute
+ * exactly what the reference engine would.
+ *
+ * Cells are passed as columns, indexed [x][y].  Cells beyond the edges of the
+ * board are dead.
+ */
+public interface LifeEngine {
+
+    /**
+     * Obtain the name of the engine.
+     * @return The engine's name
+     */
+    public String getName();
+
+    /**
+     * Check whether the engine can step a board with some rules.  An engine
+     * which only counts neighbors cannot run a PatternRuleSet, whose
+     * applyRules() throws IllegalStateException, and must return false for
+     * one.
+     * @param rules The rule set.
+     * @param neighborhood The neighborhood used to count living neighbors.
+     * @return true if the engine can run these rules.
+     */
+    public boolean supports(RuleSet rules, Neighborhood neighborhood);
+
+    /**
+     * Estimate how long the engine would take to compute a generation.  Only
+     * the relative sizes of the estimates matter; the built-in engines give
+     * roughly nanoseconds.
+     * @param rules The rule set.
+     * @param neighborhood The neighborhood used to count living neighbors.
+     * @param width The board width.
+     * @param height The board height.
+     * @param population The number of living cells.
+     * @return The estimated cost of one generation.
+     */
+    public double cost(RuleSet rules, Neighborhood neighborhood,
+            int width, int height, long population);
+
+    /**
+     * Compute one or more generations.  Engines which gain nothing from
+     * computing several generations at once compute just one.
+     * @param src The current cells.  These must not be modified.
+     * @param dst The buffer receiving the cells after the last generation
+     *            computed.  Its old contents are garbage.
+     * @param width The board width.
+     * @param height The board height.
+     * @param rules The rule set.
+     * @param neighborhood The neighborhood used to count living neighbors.
+     * @param generations The most generations to compute, at least 1.
+     * @return The number of generations computed.
+     */
+    public int step(boolean[][] src, boolean[][] dst, int width, int height,
+            RuleSet rules, Neighborhood neighborhood, int generations);
+}
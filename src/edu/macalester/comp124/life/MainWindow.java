@@ -6,9 +6,13 @@ import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
-import java.io.IOException;
 import java.text.ParseException;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Main window class for running and displaying the Life simulation.
@@ -23,13 +27,20 @@ public class MainWindow extends JFrame
     implements ActionListener, ChangeListener {
     
     private static final int RUN_DELAY = 250;
+    private static final double RANDOM_DENSITY = 0.25;
 
+    private JButton bOpen;
+    private JButton bSave;
     private JButton bStep;
     private JToggleButton tbRun;
     private GameBoard board;
     private LifeComponent pane;
     private Timer runTimer;
     private ButtonGroup ruleSetButtons;
+    private JPanel statusBar;
+    private JProgressBar progressBar;
+    /** The load or save running in the background, if any */
+    private SwingWorker<?, ?> fileTask;
 
     /**
      * Main entry point for the Game of Life program
@@ -62,18 +73,26 @@ public class MainWindow extends JFrame
         add(tb, BorderLayout.NORTH);
 
         // populate the toolbar with controls
-        JButton open = new JButton("Open");
-        open.setActionCommand("open");
-        open.addActionListener(this);
-        tb.add(open);
-        JButton save = new JButton("Save");
-        save.setActionCommand("save");
-        save.addActionListener(this);
-        tb.add(save);
+        bOpen = new JButton("Open");
+        bOpen.setActionCommand("open");
+        bOpen.addActionListener(this);
+        tb.add(bOpen);
+        bSave = new JButton("Save");
+        bSave.setActionCommand("save");
+        bSave.addActionListener(this);
+        tb.add(bSave);
         JButton bnew = new JButton("New");
         bnew.setActionCommand("new");
         bnew.addActionListener(this);
         tb.add(bnew);
+        JButton clear = new JButton("Clear");
+        clear.setActionCommand("clear");
+        clear.addActionListener(this);
+        tb.add(clear);
+        JButton random = new JButton("Random");
+        random.setActionCommand("random");
+        random.addActionListener(this);
+        tb.add(random);
 
         tb.add(new JToolBar.Separator());
 
@@ -107,6 +126,18 @@ public class MainWindow extends JFrame
         quit.setActionCommand("quit");
         quit.addActionListener(this);
         tb.add(quit);
+        
+        // create the status bar, shown while loading or saving
+        statusBar = new JPanel(new BorderLayout());
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        statusBar.add(progressBar, BorderLayout.CENTER);
+        JButton cancel = new JButton("Cancel");
+        cancel.setActionCommand("cancel");
+        cancel.addActionListener(this);
+        statusBar.add(cancel, BorderLayout.EAST);
+        statusBar.setVisible(false);
+        add(statusBar, BorderLayout.SOUTH);
 
         pack();
         
@@ -134,8 +165,19 @@ public class MainWindow extends JFrame
             openFile();
         } else if (cmd.equals("save")) {
             saveFile();
+        } else if (cmd.equals("cancel")) {
+            if (fileTask != null)
+                fileTask.cancel(true);
         } else if (cmd.equals("new")) {
             newBoard();
+        } else if (cmd.equals("clear")) {
+            board.clear();
+            board.publish();
+            pane.repaint();
+        } else if (cmd.equals("random")) {
+            board.fillRandom(RANDOM_DENSITY, new Random());
+            board.publish();
+            pane.repaint();
         } else if (cmd.equals("step")) {
             board.next();
             pane.repaint();
@@ -161,43 +203,162 @@ public class MainWindow extends JFrame
     }
     
     /**
-     * Open a file.
+     * Open a file.  The file is loaded in the background, and only replaces
+     * the current board once it has been read completely.
      */
     private void openFile() {
         JFileChooser c = new JFileChooser();
         if (c.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
             File f = c.getSelectedFile();
-            try {
-                GameBoard b = new GameBoard(new Conway(), f);
-                setBoard(b);
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(this,
-                        String.format("An error occured reading %s:\n%s",
-                            f, e.getMessage()),
-                        "Error reading file",
-                        JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+            startFileTask(new LoadWorker(f, board.getRuleSet()),
+                    String.format("Loading %s", f.getName()));
         }
     }
     
     /**
-     * Save a file.
+     * Save a file.  The current generation is saved in the background while
+     * the board keeps running.
      */
     private void saveFile() {
         JFileChooser c = new JFileChooser();
         if (c.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
             File f = c.getSelectedFile();
+            startFileTask(new SaveWorker(f, board.snapshot()),
+                    String.format("Saving %s", f.getName()));
+        }
+    }
+    
+    /**
+     * Run a load or save in the background, showing its progress.
+     * @param task The task.
+     * @param label The text to show on the progress bar.
+     */
+    private void startFileTask(SwingWorker<?, ?> task, String label) {
+        fileTask = task;
+        bOpen.setEnabled(false);
+        bSave.setEnabled(false);
+        progressBar.setValue(0);
+        progressBar.setString(label);
+        statusBar.setVisible(true);
+        validate();
+        task.addPropertyChangeListener(new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (evt.getPropertyName().equals("progress"))
+                    progressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        task.execute();
+    }
+    
+    /**
+     * Hide the progress of a finished load or save.
+     */
+    private void finishFileTask() {
+        fileTask = null;
+        bOpen.setEnabled(true);
+        bSave.setEnabled(true);
+        statusBar.setVisible(false);
+        validate();
+    }
+    
+    /**
+     * Report the failure of a load or save.
+     * @param e The exception thrown by the task.
+     * @param f The file being loaded or saved.
+     * @param what What the task was doing, e.g. "reading".
+     * @param title The title of the message.
+     */
+    private void showFileError(ExecutionException e, File f, String what, String title) {
+        JOptionPane.showMessageDialog(this,
+                String.format("An error occured %s %s:\n%s",
+                    what, f, e.getCause().getMessage()),
+                title,
+                JOptionPane.ERROR_MESSAGE);
+    }
+    
+    /**
+     * Loads a board in the background.
+     */
+    private class LoadWorker extends SwingWorker<GameBoard, Void>
+        implements ProgressListener {
+        private File file;
+        private RuleSet rules;
+        
+        public LoadWorker(File f, RuleSet r) {
+            file = f;
+            rules = r;
+        }
+        
+        protected GameBoard doInBackground() throws Exception {
+            return GameBoard.load(rules, file, this);
+        }
+        
+        public void progress(int done, int total) {
+            setProgress(total == 0 ? 100 : (int) (100L * done / total));
+        }
+        
+        protected void done() {
+            finishFileTask();
+            if (isCancelled())
+                return;
+            try {
+                setBoard(get());
+            } catch (InterruptedException e) {
+                // cannot happen: the task has finished
+            } catch (ExecutionException e) {
+                showFileError(e, file, "reading", "Error reading file");
+            }
+        }
+    }
+    
+    /**
+     * Saves a snapshot of the board in the background.
+     */
+    private class SaveWorker extends SwingWorker<Void, Void>
+        implements ProgressListener {
+        private File file;
+        private BoardSnapshot snapshot;
+        /**
+         * Set by whichever of the background task and a cancellation comes
+         * first, which is then the one to release the snapshot.
+         */
+        private AtomicBoolean claimed = new AtomicBoolean();
+        
+        public SaveWorker(File f, BoardSnapshot snap) {
+            file = f;
+            snapshot = snap;
+        }
+        
+        protected Void doInBackground() throws Exception {
+            if (!claimed.compareAndSet(false, true))
+                return null;
             try {
-                board.save(f);
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(this,
-                        String.format("An error occured saving to %s:\n%s",
-                            f, e.getMessage()),
-                        "Error saving file",
-                        JOptionPane.ERROR_MESSAGE);
+                snapshot.save(file, this);
+            } finally {
+                snapshot.release();
+            }
+            return null;
+        }
+        
+        public void progress(int done, int total) {
+            setProgress(total == 0 ? 100 : (int) (100L * done / total));
+        }
+        
+        protected void done() {
+            finishFileTask();
+            if (isCancelled()) {
+                // cancelled before the background task started
+                if (claimed.compareAndSet(false, true))
+                    snapshot.release();
                 return;
             }
+            try {
+                get();
+            } catch (InterruptedException e) {
+                // cannot happen: the task has finished
+            } catch (ExecutionException e) {
+                showFileError(e, file, "saving to", "Error saving file");
+            }
         }
     }
     
@@ -0,0 +1,154 @@
+package edu.macalester.comp124.life;
+
+/**
+ * The set of cells counted as the neighbors of a cell.
+ *
+ * A neighborhood is described row by row: for each vertical offset dy from
+ * -radius to radius, it covers the horizontal offsets low(dy) through
+ * high(dy).  The cell itself is part of the shape but is not counted as its
+ * own neighbor.  Conway's rules use the radius-1 Moore neighborhood, the 3x3
+ * square around the cell.
+ */
+public class Neighborhood {
+
+    /**
+     * The shapes of neighborhood available.
+     */
+    public enum Type {
+        /** A square of side 2r+1 */
+        MOORE,
+        /** A diamond: cells within Manhattan distance r */
+        VON_NEUMANN,
+        /** A hexagon, with the hex grid skewed onto the square grid */
+        HEXAGONAL
+    }
+
+    /** The standard 8-cell neighborhood used by Conway's rules */
+    public static final Neighborhood MOORE = new Neighborhood(Type.MOORE, 1);
+
+    private Type type;
+    private int radius;
+
+    /**
+     * Create a neighborhood.
+     * @param type The shape of the neighborhood.
+     * @param radius The radius, at least 1.
+     */
+    public Neighborhood(Type type, int radius) {
+        if (radius < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid neighborhood radius %d", radius));
+        }
+        this.type = type;
+        this.radius = radius;
+    }
+
+    /**
+     * Create a square neighborhood.
+     * @param radius The radius
+     */
+    public static Neighborhood moore(int radius) {
+        return new Neighborhood(Type.MOORE, radius);
+    }
+
+    /**
+     * Create a diamond-shaped neighborhood.
+     * @param radius The radius
+     */
+    public static Neighborhood vonNeumann(int radius) {
+        return new Neighborhood(Type.VON_NEUMANN, radius);
+    }
+
+    /**
+     * Create a hexagonal neighborhood.
+     * @param radius The radius
+     */
+    public static Neighborhood hexagonal(int radius) {
+        return new Neighborhood(Type.HEXAGONAL, radius);
+    }
+
+    /**
+     * Queries the shape of the neighborhood.
+     * @return The neighborhood type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Queries the radius of the neighborhood.
+     * @return The radius
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Query whether this is the standard radius-1 Moore neighborhood.
+     * @return true if the neighborhood is the 3x3 square.
+     */
+    public boolean isStandard() {
+        return type == Type.MOORE && radius == 1;
+    }
+
+    /**
+     * Find the leftmost horizontal offset covered in a row of the
+     * neighborhood.
+     * @param dy The vertical offset of the row, between -radius and radius.
+     * @return The smallest dx covered in the row.
+     */
+    public int low(int dy) {
+        switch (type) {
+        case VON_NEUMANN:
+            return -(radius - Math.abs(dy));
+        case HEXAGONAL:
+            return Math.max(-radius, dy - radius);
+        default:
+            return -radius;
+        }
+    }
+
+    /**
+     * Find the rightmost horizontal offset covered in a row of the
+     * neighborhood.
+     * @param dy The vertical offset of the row, between -radius and radius.
+     * @return The largest dx covered in the row.
+     */
+    public int high(int dy) {
+        switch (type) {
+        case VON_NEUMANN:
+            return radius - Math.abs(dy);
+        case HEXAGONAL:
+            return Math.min(radius, dy + radius);
+        default:
+            return radius;
+        }
+    }
+
+    /**
+     * Count the cells in the neighborhood, not including the center.
+     * @return The largest possible neighbor count.
+     */
+    public int getSize() {
+        int n = 0;
+        for (int dy = -radius; dy <= radius; dy++) {
+            n += high(dy) - low(dy) + 1;
+        }
+        return n - 1;
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof Neighborhood))
+            return false;
+        Neighborhood n = (Neighborhood) o;
+        return type == n.type && radius == n.radius;
+    }
+
+    public int hashCode() {
+        return type.hashCode() * 31 + radius;
+    }
+
+    public String toString() {
+        return String.format("%s(%d)", type, radius);
+    }
+}
@@ -0,0 +1,236 @@
+package edu.macalester.comp124.life;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts living cells over large neighborhoods in constant time per cell.
+ *
+ * Counts are computed one row at a time by sliding the neighborhood along the
+ * row.  Moving one cell to the right adds the cells just past the
+ * neighborhood's right boundary and removes those on its left boundary.  For
+ * all of the supported shapes each boundary is made of a few vertical or
+ * diagonal segments, and the number of living cells on any such segment is a
+ * difference of two prefix sums taken along the same line.  The cost of a
+ * step therefore depends on the number of segments, not on the radius.
+ *
+ * A counter can be reused for any board of the same height which is no wider
+ * than the one it was made for, so an engine given a window of columns which
+ * changes width from one generation to the next keeps its tables.
+ */
+class NeighborhoodCounter {
+
+    /**
+     * A straight run of boundary cells, relative to the neighborhood's
+     * center, going down one row per cell and across by dx per cell.
+     */
+    private static class Segment {
+        int x;
+        int y;
+        int dx;
+        int length;
+
+        Segment(int x, int y, int dx, int length) {
+            this.x = x;
+            this.y = y;
+            this.dx = dx;
+            this.length = length;
+        }
+    }
+
+    private Neighborhood neighborhood;
+    /** The widest board the tables have room for */
+    private int capacity;
+    /** The width of the board loaded */
+    private int width;
+    private int height;
+
+    /** Segments entering the neighborhood as it moves right */
+    private Segment[] entering;
+    /** Segments leaving the neighborhood as it moves right */
+    private Segment[] leaving;
+
+    /** Prefix sums down each column: vertical[x][y] counts (x, 0..y-1) */
+    private int[][] vertical;
+    /** Prefix sums along each down-right diagonal, offset by one */
+    private int[][] diagonal;
+    /** Prefix sums along each down-left diagonal, offset by one row */
+    private int[][] antiDiagonal;
+
+    /**
+     * Create a counter for a neighborhood on boards of a particular size.
+     * @param n The neighborhood
+     * @param width The widest board to be counted
+     * @param height The board height
+     */
+    NeighborhoodCounter(Neighborhood n, int width, int height) {
+        neighborhood = n;
+        capacity = width;
+        this.width = width;
+        this.height = height;
+
+        int r = n.getRadius();
+        int[] enterX = new int[2 * r + 1];
+        int[] leaveX = new int[2 * r + 1];
+        for (int dy = -r; dy <= r; dy++) {
+            enterX[dy + r] = n.high(dy) + 1;
+            leaveX[dy + r] = n.low(dy);
+        }
+        entering = segments(enterX, r);
+        leaving = segments(leaveX, r);
+
+        boolean needDiagonal = false;
+        boolean needAnti = false;
+        for (Segment s : entering) {
+            needDiagonal |= s.dx > 0;
+            needAnti |= s.dx < 0;
+        }
+        for (Segment s : leaving) {
+            needDiagonal |= s.dx > 0;
+            needAnti |= s.dx < 0;
+        }
+        vertical = new int[width][height + 1];
+        if (needDiagonal)
+            diagonal = new int[width + 1][height + 1];
+        if (needAnti)
+            antiDiagonal = new int[width + 1][height + 1];
+    }
+
+    /**
+     * Split a boundary, given as one x offset per row, into straight runs.
+     */
+    private static Segment[] segments(int[] xs, int r) {
+        List<Segment> result = new ArrayList<Segment>();
+        int start = 0;
+        while (start < xs.length) {
+            int end = start + 1;
+            int dx = 0;
+            if (end < xs.length && Math.abs(xs[end] - xs[start]) <= 1) {
+                dx = xs[end] - xs[start];
+                while (end < xs.length && xs[end] - xs[end - 1] == dx) {
+                    end++;
+                }
+            }
+            result.add(new Segment(xs[start], start - r, dx, end - start));
+            start = end;
+        }
+        return result.toArray(new Segment[result.size()]);
+    }
+
+    /**
+     * Queries the neighborhood being counted.
+     * @return The neighborhood
+     */
+    Neighborhood getNeighborhood() {
+        return neighborhood;
+    }
+
+    /**
+     * Queries the widest board the counter can be used for.
+     * @return The width
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Check whether this counter can be used for a board.
+     */
+    boolean fits(Neighborhood n, int w, int h) {
+        return neighborhood.equals(n) && w <= capacity && height == h;
+    }
+
+    /**
+     * Compute the prefix sums for a generation.
+     * @param cells The board, indexed by x then y.
+     * @param w The width of the board, no more than the capacity.
+     */
+    void load(boolean[][] cells, int w) {
+        // the down-left sums start from the column past the right edge,
+        // which a wider board may have left filled in, but every count is a
+        // difference of two sums along the same line, so it cancels out
+        width = w;
+        for (int x = 0; x < width; x++) {
+            boolean[] column = cells[x];
+            int[] v = vertical[x];
+            for (int y = 0; y < height; y++) {
+                v[y + 1] = v[y] + (column[y] ? 1 : 0);
+            }
+        }
+        if (diagonal != null) {
+            for (int x = 0; x < width; x++) {
+                int[] prev = diagonal[x];
+                int[] d = diagonal[x + 1];
+                boolean[] column = cells[x];
+                for (int y = 0; y < height; y++) {
+                    d[y + 1] = prev[y] + (column[y] ? 1 : 0);
+                }
+            }
+        }
+        if (antiDiagonal != null) {
+            for (int x = width - 1; x >= 0; x--) {
+                int[] prev = antiDiagonal[x + 1];
+                int[] a = antiDiagonal[x];
+                boolean[] column = cells[x];
+                for (int y = 0; y < height; y++) {
+                    a[y + 1] = prev[y] + (column[y] ? 1 : 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Count the living cells in the neighborhood of every cell of a row.
+     * The counts include the cell itself.
+     * @param y The row to count.
+     * @param counts Receives the count for each x.
+     */
+    void countRow(int y, int[] counts) {
+        // start with the neighborhood entirely off the left edge of the board
+        int r = neighborhood.getRadius();
+        int n = 0;
+        for (int x = -r - 1; x < width - 1; x++) {
+            for (Segment s : entering) {
+                n += segmentSum(s, x, y);
+            }
+            for (Segment s : leaving) {
+                n -= segmentSum(s, x, y);
+            }
+            if (x + 1 >= 0)
+                counts[x + 1] = n;
+        }
+    }
+
+    /**
+     * Count the living cells on a segment placed relative to (cx, cy).
+     */
+    private int segmentSum(Segment s, int cx, int cy) {
+        int x0 = cx + s.x;
+        int y0 = cy + s.y;
+
+        // clamp the run t = 0 .. length-1 to the board
+        int t0 = Math.max(0, -y0);
+        int t1 = Math.min(s.length - 1, height - 1 - y0);
+        if (s.dx == 0) {
+            if (x0 < 0 || x0 >= width)
+                return 0;
+        } else if (s.dx > 0) {
+            t0 = Math.max(t0, -x0);
+            t1 = Math.min(t1, width - 1 - x0);
+        } else {
+            t0 = Math.max(t0, x0 - width + 1);
+            t1 = Math.min(t1, x0);
+        }
+        if (t0 > t1)
+            return 0;
+
+        if (s.dx == 0) {
+            int[] v = vertical[x0];
+            return v[y0 + t1 + 1] - v[y0 + t0];
+        } else if (s.dx > 0) {
+            return diagonal[x0 + t1 + 1][y0 + t1 + 1] - diagonal[x0 + t0][y0 + t0];
+        } else {
+            return antiDiagonal[x0 - t1][y0 + t1 + 1] - antiDiagonal[x0 - t0 + 1][y0 + t0];
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package edu.macalester.comp124.life;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processes a range of seeds on several threads.
+ *
+ * Each thread sets up a worker of its own and hands it seeds, one at a time,
+ * until none are left; threads take whichever seed is next, so a slow seed
+ * does not hold up the others.  If a worker fails, the other threads stop
+ * taking seeds and the failure is thrown once they have all finished.
+ */
+final class ParallelSeeds {
+
+    /**
+     * The state one thread uses to process its seeds.
+     */
+    static abstract class Worker {
+
+        /**
+         * Process one seed.
+         * @param seed The seed.
+         */
+        abstract void process(long seed);
+
+        /**
+         * Called when the thread has no more seeds to process, even if the
+         * worker failed.
+         */
+        void finish() {
+        }
+    }
+
+    /**
+     * Creates the worker for each thread.
+     */
+    interface Factory {
+
+        /**
+         * Create a worker.  This is called on the thread which will use it.
+         * @return The worker
+         */
+        Worker create();
+    }
+
+    private ParallelSeeds() {
+    }
+
+    /**
+     * Process a range of seeds, blocking until all of them have been
+     * processed.  If the calling thread is interrupted, no more seeds are
+     * started, and once the seeds already started are finished the interrupt
+     * is kept.
+     * @param name The name of the threads, followed by their number.
+     * @param threads The number of threads to use.
+     * @param firstSeed The first seed; the rest follow it.
+     * @param count The number of seeds.
+     * @param factory Creates the worker for each thread.
+     * @return The time taken, in nanoseconds.
+     * @throws RuntimeException If a worker failed.
+     */
+    static long run(String name, int threads, final long firstSeed,
+            final int count, final Factory factory) {
+        final AtomicLong next = new AtomicLong();
+        final RuntimeException[] failure = new RuntimeException[1];
+
+        Thread[] workers = new Thread[Math.max(1, threads)];
+        long start = System.nanoTime();
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(name + i) {
+                public void run() {
+                    Worker w = null;
+                    try {
+                        w = factory.create();
+                        long i;
+                        while ((i = next.getAndIncrement()) < count) {
+                            w.process(firstSeed + i);
+                        }
+                    } catch (RuntimeException e) {
+                        synchronized (failure) {
+                            if (failure[0] == null)
+                                failure[0] = e;
+                        }
+                        next.set(count);
+                    } finally {
+                        if (w != null)
+                            w.finish();
+                    }
+                }
+            };
+            workers[i].start();
+        }
+
+        // an interrupt stops new seeds, but the workers must still finish
+        // the seeds they have started before returning
+        boolean interrupted = false;
+        for (Thread t : workers) {
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    next.set(count);
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        long elapsed = System.nanoTime() - start;
+
+        if (failure[0] != null)
+            throw failure[0];
+        return elapsed;
+    }
+}
@@ -0,0 +1,39 @@
+package edu.macalester.comp124.life;
+
+/**
+ * A rule set which depends on the arrangement of a cell's neighbors, not
+ * just on how many of them are alive.
+ *
+ * The 3x3 neighborhood of a cell is passed as a 9-bit pattern, one bit per
+ * cell in reading order:
+ *
+ * <pre>
+ *   1   2   4
+ *   8  16  32
+ *  64 128 256
+ * </pre>
+ *
+ * so bit 16 is the cell itself.  Pattern rules only make sense with the
+ * standard neighborhood.
+ *
+ * A neighbor count alone is not enough to apply pattern rules, so their
+ * applyRules() throws IllegalStateException.  Code which only has counts
+ * must not be given them: an engine which counts neighbors returns false
+ * from LifeEngine.supports() for pattern rules, and a board with pattern
+ * rules can only be stepped with the standard neighborhood.
+ */
+public interface PatternRuleSet extends RuleSet {
+
+    /**
+     * Apply the rules described by this rule set.
+     * @param pattern The cell and its neighbors as a 9-bit pattern.
+     * @return The value of the cell in the next generation.
+     */
+    public boolean applyPattern(int pattern);
+
+    /**
+     * Pattern rules cannot be applied to a neighbor count.
+     * @throws IllegalStateException always
+     */
+    public boolean applyRules(boolean value, int neighborCount);
+}
@@ -0,0 +1,18 @@
+package edu.macalester.comp124.life;
+
+/**
+ * Interface for receiving the progress of long operations such as loading
+ * and saving boards.
+ *
+ * Progress is reported from the thread doing the work.  Operations which
+ * report progress can also be cancelled by interrupting that thread.
+ */
+public interface ProgressListener {
+
+    /**
+     * Report how much of an operation is done.
+     * @param done The number of units of work finished.
+     * @param total The total number of units of work.
+     */
+    public void progress(int done, int total);
+}
@@ -0,0 +1,81 @@
+package edu.macalester.comp124.life;
+
+/**
+ * The simplest possible engine: every neighbor of every cell is counted
+ * separately.
+ *
+ * This engine is far too slow to be chosen when any other engine can run the
+ * board.  It is kept as the definition of what the other engines compute.
+ */
+public class ReferenceEngine implements LifeEngine {
+
+    public String getName() {
+        return "Reference";
+    }
+
+    public boolean supports(RuleSet rules, Neighborhood neighborhood) {
+        // pattern rules are only defined on the standard neighborhood
+        return neighborhood.isStandard() || RuleTable.countsOnly(rules);
+    }
+
+    public double cost(RuleSet rules, Neighborhood neighborhood,
+            int width, int height, long population) {
+        return 10.0 * width * height * neighborhood.getSize();
+    }
+
+    public int step(boolean[][] src, boolean[][] dst, int width, int height,
+            RuleSet rules, Neighborhood neighborhood, int generations) {
+        boolean patterns = !RuleTable.countsOnly(rules);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (patterns) {
+                    dst[x][y] = RuleTable.apply(rules,
+                            patternAt(src, width, height, x, y));
+                } else {
+                    dst[x][y] = rules.applyRules(src[x][y],
+                            countNeighbors(src, width, height, neighborhood, x, y));
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Counts the living neighbors of a cell by visiting every cell of its
+     * neighborhood.
+     */
+    static int countNeighbors(boolean[][] cells, int width, int height,
+            Neighborhood neighborhood, int x, int y) {
+        int n = 0;
+        int r = neighborhood.getRadius();
+        for (int dy = -r; dy <= r; dy++) {
+            int ny = y + dy;
+            if (ny < 0 || ny >= height)
+                continue;
+            for (int dx = neighborhood.low(dy); dx <= neighborhood.high(dy); dx++) {
+                int nx = x + dx;
+                if (nx >= 0 && nx < width && (dx != 0 || dy != 0) && cells[nx][ny])
+                    n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Builds the 9-bit pattern of a cell's 3x3 neighborhood.
+     */
+    static int patternAt(boolean[][] cells, int width, int height, int x, int y) {
+        int pattern = 0;
+        int bit = 1;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int nx = x + dx;
+                int ny = y + dy;
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height && cells[nx][ny])
+                    pattern |= bit;
+                bit <<= 1;
+            }
+        }
+        return pattern;
+    }
+}
@@ -0,0 +1,66 @@
+package edu.macalester.comp124.life;
+
+/**
+ * Describes rule sets as text, so that the same rules can be created again in
+ * another process or after a restart.
+ *
+ * A rule set with parameters is described by its family and its rule, e.g.
+ * "Isotropic:B2-a/S12" or "LargerThanLife:R5,C0,M1,S34..58,B34..45,NM".  Any
+ * other rule set is described by its class name, and can only be created
+ * again if the class has a public no-argument constructor.  Two rule sets
+ * with the same description compute the same generations, whatever their
+ * names.
+ */
+final class RuleDescription {
+
+    private static final String ISOTROPIC = "Isotropic";
+    private static final String LARGER_THAN_LIFE = "LargerThanLife";
+
+    private RuleDescription() {
+    }
+
+    /**
+     * Describe a rule set.
+     * @param rules The rule set.
+     * @return The description.
+     */
+    static String describe(RuleSet rules) {
+        if (rules instanceof Isotropic) {
+            return ISOTROPIC + ":" + ((Isotropic) rules).getRule();
+        } else if (rules instanceof LargerThanLife) {
+            return LARGER_THAN_LIFE + ":" + ((LargerThanLife) rules).getRule();
+        } else {
+            return rules.getClass().getName();
+        }
+    }
+
+    /**
+     * Create a rule set from its description.
+     * @param description The description, from describe().
+     * @param name The name to give the rule set, if its family takes one.
+     * @return The rule set.
+     * @throws IllegalArgumentException If the description is not valid or
+     *         names a class which cannot be created.
+     */
+    static RuleSet create(String description, String name) {
+        int colon = description.indexOf(':');
+        if (colon >= 0) {
+            String family = description.substring(0, colon);
+            String rule = description.substring(colon + 1);
+            if (family.equals(ISOTROPIC)) {
+                return new Isotropic(name, rule);
+            } else if (family.equals(LARGER_THAN_LIFE)) {
+                return new LargerThanLife(name, rule);
+            }
+            throw new IllegalArgumentException(
+                    String.format("Unknown rule family '%s'", family));
+        }
+        try {
+            return Class.forName(description).asSubclass(RuleSet.class)
+                    .getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot create rule set %s", description), e);
+        }
+    }
+}
@@ -20,6 +20,8 @@ public interface RuleSet {
      * @param value The current value of the cell.
      * @param neighborCount The number of living neighbors.
      * @return The value of the cell in the next generation.
+     * @throws IllegalStateException If the rules depend on more than the
+     *         number of neighbors (see PatternRuleSet).
      */
     public boolean applyRules(boolean value, int neighborCount);
 }
\ No newline at end of file
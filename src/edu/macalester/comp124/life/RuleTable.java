@@ -0,0 +1,131 @@
+package edu.macalester.comp124.life;
+
+/**
+ * Compiles rule sets into lookup tables indexed by 9-bit neighborhood
+ * patterns.
+ *
+ * Patterns use the layout documented on PatternRuleSet.  A rule set that only
+ * looks at the neighbor count is compiled by counting the bits of each
+ * pattern, so every rule, totalistic or not, is stepped by the same table
+ * lookup.
+ */
+final class RuleTable {
+
+    /** The bit of a pattern holding the cell itself */
+    static final int CENTER = 16;
+    /** The bits of a pattern holding the neighbors */
+    static final int NEIGHBORS = 0x1ff & ~CENTER;
+    /** The number of possible patterns */
+    static final int SIZE = 512;
+
+    private RuleTable() {
+    }
+
+    /**
+     * Check whether a rule set can be applied to neighbor counts, rather
+     * than only to patterns.
+     * @param rules The rule set.
+     * @return false for a PatternRuleSet.
+     */
+    static boolean countsOnly(RuleSet rules) {
+        return !(rules instanceof PatternRuleSet);
+    }
+
+    /**
+     * Apply any rule set to a cell in the standard neighborhood.
+     * @param rules The rule set.
+     * @param pattern The cell and its neighbors as a 9-bit pattern.
+     * @return The value of the cell in the next generation.
+     */
+    static boolean apply(RuleSet rules, int pattern) {
+        if (countsOnly(rules)) {
+            return rules.applyRules((pattern & CENTER) != 0,
+                    Integer.bitCount(pattern & NEIGHBORS));
+        }
+        return ((PatternRuleSet) rules).applyPattern(pattern);
+    }
+
+    /**
+     * Build the lookup table for a rule set.
+     * @param rules The rule set.
+     * @return The next value of a cell for each pattern.
+     */
+    static boolean[] compile(RuleSet rules) {
+        boolean[] table = new boolean[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            table[i] = apply(rules, i);
+        }
+        return table;
+    }
+
+    /**
+     * Pack one row of a pattern: the cells at the same y in three adjacent
+     * columns.
+     */
+    static int row(boolean left, boolean center, boolean right) {
+        return (left ? 1 : 0) | (center ? 2 : 0) | (right ? 4 : 0);
+    }
+
+    /**
+     * Computes one generation for a range of rows in a column, sliding the
+     * pattern down the column: each step drops the top row of the pattern
+     * and shifts in the row below.
+     * @param table The compiled rule table.
+     * @param left The column to the left, or an all-dead column.
+     * @param center The column being computed.
+     * @param right The column to the right, or an all-dead column.
+     * @param out The column receiving the next generation.
+     * @param h The height of the columns; cells beyond it are dead.
+     * @param y0 The first row to compute.
+     * @param y1 One past the last row to compute.
+     */
+    static void stepColumn(boolean[] table, boolean[] left, boolean[] center,
+            boolean[] right, boolean[] out, int h, int y0, int y1) {
+        if (y0 >= y1)
+            return;
+        int pattern = 0;
+        if (y0 > 0)
+            pattern = row(left[y0 - 1], center[y0 - 1], right[y0 - 1]);
+        pattern |= row(left[y0], center[y0], right[y0]) << 3;
+        for (int y = y0; y < y1; y++) {
+            int below = y + 1;
+            if (below < h)
+                pattern |= row(left[below], center[below], right[below]) << 6;
+            out[y] = table[pattern];
+            pattern >>>= 3;
+        }
+    }
+
+    /**
+     * Computes one generation for a range of rows in a column as
+     * stepColumn() does, also counting the cells computed which are alive
+     * and which have changed.  The counts are added to living[x] and
+     * changed[x].
+     */
+    static void stepColumn(boolean[] table, boolean[] left, boolean[] center,
+            boolean[] right, boolean[] out, int h, int y0, int y1,
+            int[] living, int[] changed, int x) {
+        if (y0 >= y1)
+            return;
+        int pattern = 0;
+        if (y0 > 0)
+            pattern = row(left[y0 - 1], center[y0 - 1], right[y0 - 1]);
+        pattern |= row(left[y0], center[y0], right[y0]) << 3;
+        int n = 0;
+        int c = 0;
+        for (int y = y0; y < y1; y++) {
+            int below = y + 1;
+            if (below < h)
+                pattern |= row(left[below], center[below], right[below]) << 6;
+            boolean v = table[pattern];
+            out[y] = v;
+            int is = v ? 1 : 0;
+            n += is;
+            // the cell itself is bit 4 of the pattern
+            c += is ^ ((pattern >>> 4) & 1);
+            pattern >>>= 3;
+        }
+        living[x] += n;
+        changed[x] += c;
+    }
+}
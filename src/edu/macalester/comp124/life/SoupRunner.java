@@ -0,0 +1,257 @@
+package edu.macalester.comp124.life;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs large numbers of small random boards ("soups") until they stabilize.
+ *
+ * Each soup is filled from its own seed, so any soup can be reproduced
+ * later from the seed alone.  Soups are spread across several threads; each
+ * thread takes a board from a shared pool and reuses it for soup after soup.
+ * A soup stops when it returns to a state it was in within the last few
+ * generations (i.e. it has become still or periodic), or when it reaches the
+ * generation limit.  Finished soups are handed to a SoupSink.
+ */
+public class SoupRunner {
+
+    private RuleSet ruleSet;
+    private int boardWidth;
+    private int boardHeight;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxGenerations = 10000;
+    private int maxPeriod = 6;
+    private double density = 0.5;
+    private SoupSink sink;
+
+    /** Boards waiting to be reused */
+    private Queue<GameBoard> pool = new ConcurrentLinkedQueue<GameBoard>();
+
+    /** The number of soups run by the last call to run() */
+    private int lastCount;
+    /** The time taken by the last call to run(), in nanoseconds */
+    private long lastElapsed;
+
+    /**
+     * Create a runner for soups of a particular size.  The rule set is shared
+     * by all threads, so it must not keep any state of its own.
+     * @param rules The rule set to use
+     * @param width The soup width
+     * @param height The soup height
+     */
+    public SoupRunner(RuleSet rules, int width, int height) {
+        ruleSet = rules;
+        boardWidth = width;
+        boardHeight = height;
+    }
+
+    /**
+     * Set the number of threads to run soups on.
+     * @param n The number of threads (defaults to the number of processors).
+     */
+    public void setThreads(int n) {
+        threads = n;
+    }
+
+    /**
+     * Set the number of generations after which an unstable soup is given up.
+     * @param n The generation limit
+     */
+    public void setMaxGenerations(int n) {
+        maxGenerations = n;
+    }
+
+    /**
+     * Set the longest period that counts as stable.
+     * @param n The longest period to detect
+     */
+    public void setMaxPeriod(int n) {
+        maxPeriod = n;
+    }
+
+    /**
+     * Set the fraction of cells that start alive.
+     * @param d The density, between 0 and 1.
+     */
+    public void setDensity(double d) {
+        density = d;
+    }
+
+    /**
+     * Set the sink that receives finished soups.
+     * @param s The sink, or null to discard results.
+     */
+    public void setSink(SoupSink s) {
+        sink = s;
+    }
+
+    /**
+     * Run a range of soups, blocking until all of them have finished.
+     * @param firstSeed The seed of the first soup; the rest use the seeds
+     *                  following it.
+     * @param count The number of soups to run.
+     * @return The number of soups that stabilized.
+     */
+    public int run(long firstSeed, int count) {
+        final AtomicInteger stable = new AtomicInteger();
+        lastElapsed = ParallelSeeds.run("soup-runner-", threads, firstSeed, count,
+                new ParallelSeeds.Factory() {
+            public ParallelSeeds.Worker create() {
+                GameBoard b = pool.poll();
+                if (b == null) {
+                    b = new GameBoard(ruleSet, boardWidth, boardHeight);
+                    // nothing here asks for births or deaths
+                    b.setCounting(false);
+                }
+                final GameBoard board = b;
+                final long[] history = new long[maxPeriod];
+                return new ParallelSeeds.Worker() {
+                    void process(long seed) {
+                        if (runSoup(board, seed, history) > 0)
+                            stable.incrementAndGet();
+                    }
+
+                    void finish() {
+                        pool.add(board);
+                    }
+                };
+            }
+        });
+        lastCount = count;
+        return stable.get();
+    }
+
+    /**
+     * Query the throughput of the last call to run().
+     * @return The number of soups finished per second.
+     */
+    public double getSoupsPerSecond() {
+        if (lastElapsed == 0)
+            return 0;
+        return lastCount * 1e9 / lastElapsed;
+    }
+
+    /**
+     * Fill a board from a seed and run it until it stabilizes.
+     * @return The period of the final state, or 0 if it did not stabilize.
+     */
+    private int runSoup(GameBoard board, long seed, long[] history) {
+        fill(board, seed);
+
+        int period = 0;
+        int gen;
+        for (gen = 0; gen <= maxGenerations; gen++) {
+            long h = fingerprint(board);
+            for (int p = 1; p <= maxPeriod && p <= gen; p++) {
+                if (history[(gen - p) % maxPeriod] == h) {
+                    period = p;
+                    break;
+                }
+            }
+            if (period > 0)
+                break;
+            history[gen % maxPeriod] = h;
+            if (gen < maxGenerations)
+                board.next();
+        }
+
+        if (sink != null)
+            sink.soupFinished(seed, board, Math.min(gen, maxGenerations), period);
+        return period;
+    }
+
+    /**
+     * Fill a board with random cells, a column at a time.  At the default
+     * density of one half, every random number supplies 64 cells.
+     */
+    private void fill(GameBoard board, long seed) {
+        SoupRandom rng = new SoupRandom(seed);
+        int threshold = (int) (density * (1 << 24));
+        boolean[] column = new boolean[boardHeight];
+        for (int x = 0; x < boardWidth; x++) {
+            long bits = 0;
+            for (int y = 0; y < boardHeight; y++) {
+                if (density == 0.5) {
+                    if ((y & 63) == 0)
+                        bits = rng.nextLong();
+                    column[y] = (bits & 1) != 0;
+                    bits >>>= 1;
+                } else {
+                    column[y] = (int) (rng.nextLong() >>> 40) < threshold;
+                }
+            }
+            board.setColumn(x, column);
+        }
+    }
+
+    /**
+     * Compute a 64-bit hash of the board's cells.
+     */
+    private static long fingerprint(GameBoard board) {
+        long h = 0;
+        for (int x = 0; x < board.getWidth(); x++) {
+            long word = 0;
+            for (int y = 0; y < board.getHeight(); y++) {
+                word = (word << 1) | (board.getCell(x, y) ? 1 : 0);
+                if ((y & 63) == 63) {
+                    h = Long.rotateLeft((h ^ word) * 0x9E3779B97F4A7C15L, 31);
+                    word = 0;
+                }
+            }
+            h = Long.rotateLeft((h ^ word ^ x) * 0x9E3779B97F4A7C15L, 31);
+        }
+        return h;
+    }
+
+    /**
+     * A small, fast, unsynchronized random number generator (xorshift64*).
+     * java.util.Random is synchronized and yields only 48 bits of state per
+     * call, which makes it the bottleneck when filling small boards.
+     */
+    private static class SoupRandom {
+        private long state;
+
+        SoupRandom(long seed) {
+            // scramble the seed (splitmix64) so consecutive seeds diverge
+            long z = seed + 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            state = z ^ (z >>> 31);
+            if (state == 0)
+                state = 1;
+        }
+
+        long nextLong() {
+            state ^= state >>> 12;
+            state ^= state << 25;
+            state ^= state >>> 27;
+            return state * 0x2545F4914F6CDD1DL;
+        }
+    }
+
+    /**
+     * Run a batch of soups and report the throughput.
+     * @param args The number of soups, and optionally the first seed and the
+     *             soup size.
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        final AtomicLong ash = new AtomicLong();
+        SoupRunner runner = new SoupRunner(new Conway(), size, size);
+        runner.setSink(new SoupSink() {
+            public void soupFinished(long s, GameBoard board, int generation, int period) {
+                ash.addAndGet(board.getPopulation());
+            }
+        });
+        int stable = runner.run(seed, count);
+        System.out.println(String.format(
+                "%d soups (%d stabilized), %.1f soups/s, mean final population %.1f",
+                count, stable, runner.getSoupsPerSecond(),
+                (double) ash.get() / count));
+    }
+}
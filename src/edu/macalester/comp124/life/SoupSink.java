@@ -0,0 +1,22 @@
+package edu.macalester.comp124.life;
+
+/**
+ * Receives the results of soups run by a SoupRunner.
+ *
+ * Sinks are called from the runner's worker threads, possibly several at
+ * once, so implementations must be thread-safe.
+ */
+public interface SoupSink {
+
+    /**
+     * Called when a soup has finished.  The board is reused for another soup
+     * as soon as this method returns, so a sink that wants to keep it must
+     * copy it.
+     * @param seed The seed the soup was generated from.
+     * @param board The final state of the soup.
+     * @param generation The generation at which the soup stopped.
+     * @param period The period of the final state, or 0 if the soup did not
+     *               stabilize within the generation limit.
+     */
+    public void soupFinished(long seed, GameBoard board, int generation, int period);
+}
@@ -0,0 +1,149 @@
+package edu.macalester.comp124.life;
+
+import java.util.Arrays;
+
+/**
+ * Engine for the standard neighborhood which only computes the cells near
+ * living cells.
+ *
+ * Under a rule where dead cells with no living neighbors stay dead (no B0), a
+ * cell can only be alive in the next generation if some cell of its 3x3
+ * neighborhood is alive now.  This engine finds the living cells of each
+ * column, clears the next generation, and runs the rule table only over the
+ * rows within one cell of a living cell.  Finding and clearing cells is much
+ * cheaper than looking them up, so this wins once a board has settled into
+ * sparse ash.
+ */
+public class SparseEngine implements CountingEngine {
+
+    /** The table engine, which compiles and caches the rule table */
+    private TableEngine tables = new TableEngine();
+    /** The living rows of the three columns around the one being computed */
+    private int[][] rows = new int[3][];
+    /** The number of living rows in each of rows */
+    private int[] counts = new int[3];
+
+    public String getName() {
+        return "Sparse";
+    }
+
+    public boolean supports(RuleSet rules, Neighborhood neighborhood) {
+        return neighborhood.isStandard() && !tables.compiledRules(rules)[0];
+    }
+
+    public double cost(RuleSet rules, Neighborhood neighborhood,
+            int width, int height, long population) {
+        return 0.7 * width * height + 100.0 * population;
+    }
+
+    public int step(boolean[][] src, boolean[][] dst, int width, int height,
+            RuleSet rules, Neighborhood neighborhood, int generations) {
+        return step(src, dst, width, height, rules, neighborhood, generations,
+                null, null);
+    }
+
+    public int step(boolean[][] src, boolean[][] dst, int width, int height,
+            RuleSet rules, Neighborhood neighborhood, int generations,
+            int[] living, int[] changed) {
+        boolean[] table = tables.compiledRules(rules);
+        boolean[] dead = new boolean[height];
+        for (int i = 0; i < 3; i++) {
+            if (rows[i] == null || rows[i].length < height)
+                rows[i] = new int[height];
+        }
+        // rows[0], rows[1] and rows[2] hold columns x-1, x and x+1
+        counts[0] = 0;
+        counts[1] = width > 0 ? findLiving(src[0], height, rows[1]) : 0;
+        for (int x = 0; x < width; x++) {
+            counts[2] = x + 1 < width ? findLiving(src[x + 1], height, rows[2]) : 0;
+
+            boolean[] out = dst[x];
+            Arrays.fill(out, false);
+            if (living != null) {
+                living[x] = 0;
+                changed[x] = 0;
+            }
+            if (counts[0] + counts[1] + counts[2] > 0) {
+                boolean[] left = x > 0 ? src[x - 1] : dead;
+                boolean[] right = x + 1 < width ? src[x + 1] : dead;
+                stepNear(table, left, src[x], right, out, height, living, changed, x);
+            }
+
+            int[] t = rows[0];
+            rows[0] = rows[1];
+            rows[1] = rows[2];
+            rows[2] = t;
+            counts[0] = counts[1];
+            counts[1] = counts[2];
+        }
+        return 1;
+    }
+
+    /**
+     * Lists the living rows of a column.
+     * @return The number of living rows.
+     */
+    private static int findLiving(boolean[] column, int height, int[] out) {
+        int n = 0;
+        for (int y = 0; y < height; y++) {
+            if (column[y])
+                out[n++] = y;
+        }
+        return n;
+    }
+
+    /**
+     * Computes the rows of a column which lie within one row of a living
+     * cell in it or either of its neighbors.  The living rows are merged in
+     * order, and each run of rows to compute is stepped in one go.  Every
+     * living cell of the column is in one of the runs, so if living is not
+     * null, counting the runs counts the whole column.
+     */
+    private void stepNear(boolean[] table, boolean[] left, boolean[] center,
+            boolean[] right, boolean[] out, int height,
+            int[] living, int[] changed, int x) {
+        int i = 0, j = 0, k = 0;
+        int lo = 0;
+        int hi = -2;
+        while (true) {
+            int y = Integer.MAX_VALUE;
+            if (i < counts[0])
+                y = rows[0][i];
+            if (j < counts[1] && rows[1][j] < y)
+                y = rows[1][j];
+            if (k < counts[2] && rows[2][k] < y)
+                y = rows[2][k];
+            if (y == Integer.MAX_VALUE)
+                break;
+            if (i < counts[0] && rows[0][i] == y)
+                i++;
+            if (j < counts[1] && rows[1][j] == y)
+                j++;
+            if (k < counts[2] && rows[2][k] == y)
+                k++;
+
+            if (y - 1 > hi + 1) {
+                stepRun(table, left, center, right, out, height,
+                        Math.max(lo, 0), Math.min(hi + 1, height), living, changed, x);
+                lo = y - 1;
+            }
+            hi = Math.max(hi, y + 1);
+        }
+        stepRun(table, left, center, right, out, height,
+                Math.max(lo, 0), Math.min(hi + 1, height), living, changed, x);
+    }
+
+    /**
+     * Computes a run of rows, counting them if living is not null.
+     */
+    private static void stepRun(boolean[] table, boolean[] left, boolean[] center,
+            boolean[] right, boolean[] out, int height, int y0, int y1,
+            int[] living, int[] changed, int x) {
+        if (living == null) {
+            RuleTable.stepColumn(table, left, center, right, out, height, y0, y1);
+        } else {
+            RuleTable.stepColumn(table, left, center, right, out, height, y0, y1,
+                    living, changed, x);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package edu.macalester.comp124.life;
+
+import java.util.Arrays;
+
+/**
+ * Engine for the standard neighborhood which looks up the next value of each
+ * cell in a compiled rule table.
+ *
+ * Each column is stepped with RuleTable.stepColumn, which slides the 9-bit
+ * pattern of the neighborhood down the column.  When asked for several
+ * generations the engine uses temporal blocking, so the whole board is read
+ * and written only once every few generations.  The cost does not depend on
+ * the population, so this is the engine of choice for busy boards.
+ */
+public class TableEngine implements CountingEngine {
+
+    /** The side of the square tiles blocked stepping works on */
+    private static final int TILE_SIZE = 64;
+    /** The most generations computed per pass over the board */
+    private static final int BLOCK_GENERATIONS = 8;
+
+    /** The rule set compiled to a pattern lookup table */
+    private boolean[] ruleTable;
+    /** The rule set ruleTable was compiled from */
+    private RuleSet tableRules;
+
+    public String getName() {
+        return "Table";
+    }
+
+    public boolean supports(RuleSet rules, Neighborhood neighborhood) {
+        return neighborhood.isStandard();
+    }
+
+    public double cost(RuleSet rules, Neighborhood neighborhood,
+            int width, int height, long population) {
+        return 2.0 * width * height;
+    }
+
+    public int step(boolean[][] src, boolean[][] dst, int width, int height,
+            RuleSet rules, Neighborhood neighborhood, int generations) {
+        return step(src, dst, width, height, rules, neighborhood, generations,
+                null, null);
+    }
+
+    public int step(boolean[][] src, boolean[][] dst, int width, int height,
+            RuleSet rules, Neighborhood neighborhood, int generations,
+            int[] living, int[] changed) {
+        boolean[] table = compiledRules(rules);
+        if (living != null) {
+            Arrays.fill(living, 0, width, 0);
+            Arrays.fill(changed, 0, width, 0);
+        }
+        if (generations == 1) {
+            boolean[] dead = new boolean[height];
+            for (int x = 0; x < width; x++) {
+                boolean[] left = x > 0 ? src[x - 1] : dead;
+                boolean[] right = x + 1 < width ? src[x + 1] : dead;
+                if (living == null) {
+                    RuleTable.stepColumn(table, left, src[x], right, dst[x],
+                            height, 0, height);
+                } else {
+                    RuleTable.stepColumn(table, left, src[x], right, dst[x],
+                            height, 0, height, living, changed, x);
+                }
+            }
+            return 1;
+        }
+        int k = Math.min(generations, BLOCK_GENERATIONS);
+        stepBlocked(table, src, dst, width, height, k, living, changed);
+        return k;
+    }
+
+    /**
+     * Get the lookup table for a rule set, compiling it if the rule set has
+     * changed.  Rule sets must therefore always give the same answers.
+     * @param rules The rule set.
+     * @return The rule table
+     */
+    boolean[] compiledRules(RuleSet rules) {
+        if (tableRules != rules) {
+            ruleTable = RuleTable.compile(rules);
+            tableRules = rules;
+        }
+        return ruleTable;
+    }
+
+    /**
+     * Advances the board k generations by temporal blocking.  The board is
+     * cut into tiles; each tile is copied into a small buffer along with a
+     * halo k cells wide, and stepped k times in the buffer before moving on
+     * to the next tile.  Each generation the outermost ring of the buffer
+     * becomes invalid, since its neighbors were not computed, so the region
+     * computed shrinks by one cell per generation until only the tile itself
+     * is left.  Sides of the buffer on the edge of the board do not shrink,
+     * as the cells beyond them are always dead.  If living is not null,
+     * each tile is counted as it is copied out.
+     */
+    private static void stepBlocked(boolean[] table, boolean[][] src,
+            boolean[][] dst, int width, int height, int k,
+            int[] living, int[] changed) {
+        int size = TILE_SIZE + 2 * k;
+        boolean[][] a = new boolean[size][size];
+        boolean[][] b = new boolean[size][size];
+
+        for (int tx0 = 0; tx0 < width; tx0 += TILE_SIZE) {
+            int tx1 = Math.min(tx0 + TILE_SIZE, width);
+            int x0 = Math.max(tx0 - k, 0);
+            int x1 = Math.min(tx1 + k, width);
+            for (int ty0 = 0; ty0 < height; ty0 += TILE_SIZE) {
+                int ty1 = Math.min(ty0 + TILE_SIZE, height);
+                int y0 = Math.max(ty0 - k, 0);
+                int y1 = Math.min(ty1 + k, height);
+                int w = x1 - x0;
+                int h = y1 - y0;
+
+                for (int x = 0; x < w; x++) {
+                    System.arraycopy(src[x0 + x], y0, a[x], 0, h);
+                }
+
+                for (int g = 1; g <= k; g++) {
+                    int lx0 = x0 == 0 ? 0 : g;
+                    int lx1 = x1 == width ? w : w - g;
+                    int ly0 = y0 == 0 ? 0 : g;
+                    int ly1 = y1 == height ? h : h - g;
+                    stepTile(table, a, b, w, h, lx0, lx1, ly0, ly1);
+                    boolean[][] t = a;
+                    a = b;
+                    b = t;
+                }
+
+                for (int x = tx0; x < tx1; x++) {
+                    System.arraycopy(a[x - x0], ty0 - y0, dst[x], ty0, ty1 - ty0);
+                    if (living != null) {
+                        count(src[x], dst[x], ty0, ty1, living, changed, x);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes one generation for part of a tile buffer.  Cells outside the
+     * w x h buffer are dead.
+     */
+    private static void stepTile(boolean[] table, boolean[][] src, boolean[][] dst,
+            int w, int h, int x0, int x1, int y0, int y1) {
+        boolean[] dead = new boolean[h];
+        for (int x = x0; x < x1; x++) {
+            boolean[] left = x > 0 ? src[x - 1] : dead;
+            boolean[] right = x + 1 < w ? src[x + 1] : dead;
+            RuleTable.stepColumn(table, left, src[x], right, dst[x], h, y0, y1);
+        }
+    }
+
+    /**
+     * Counts the living and changed cells in part of a column, adding them
+     * to living[x] and changed[x].
+     */
+    private static void count(boolean[] before, boolean[] after, int y0, int y1,
+            int[] living, int[] changed, int x) {
+        int n = 0;
+        int c = 0;
+        for (int y = y0; y < y1; y++) {
+            int was = before[y] ? 1 : 0;
+            int is = after[y] ? 1 : 0;
+            n += is;
+            c += was ^ is;
+        }
+        living[x] += n;
+        changed[x] += c;
+    }
+}
@@ -0,0 +1,418 @@
+package edu.macalester.comp124.life;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a Life board split into tiles across several local worker processes.
+ *
+ * The board is partitioned into a grid of rectangular tiles, each owned by a
+ * TileWorker process.  Every generation the coordinator collects the edge
+ * cells of each tile and hands each worker the halo it needs from its
+ * neighbors, as wide as the radius of the board's neighborhood, which also
+ * serves as the barrier between generations.  The
+ * full board only exists on the coordinator when it is gathered, e.g. for a
+ * checkpoint or at the end of a run.
+ */
+public class TileCoordinator {
+
+    /** How long to wait for the workers to connect, in milliseconds. */
+    private static final int CONNECT_TIMEOUT = 30000;
+
+    private int boardWidth;
+    private int boardHeight;
+    private RuleSet ruleSet;
+    private Neighborhood neighborhood;
+
+    /** The left edge of each tile column, plus the board width at the end. */
+    private int[] tileX;
+    /** The top edge of each tile row, plus the board height at the end. */
+    private int[] tileY;
+    /** The tile column containing each board column */
+    private int[] columnTile;
+    /** The tile row containing each board row */
+    private int[] rowTile;
+
+    private List<Process> processes = new ArrayList<Process>();
+    private Socket[][] sockets;
+    private DataInputStream[][] inputs;
+    private DataOutputStream[][] outputs;
+
+    /**
+     * The edge cells of each tile from the last generation, indexed by tile
+     * column and row, as top, bottom, left and right.  Each holds the rows
+     * or columns as deep as the neighborhood's radius (or the whole tile, if
+     * it is smaller), one after another.
+     */
+    private boolean[][][][] edges;
+
+    /** The number of generations computed so far */
+    private int generation;
+
+    /**
+     * Start worker processes for a board and hand each its tile.
+     * @param board The initial board.
+     * @param tilesAcross The number of tiles to split the width into.
+     * @param tilesDown The number of tiles to split the height into.
+     * @throws IOException If the workers cannot be started.
+     */
+    public TileCoordinator(GameBoard board, int tilesAcross, int tilesDown)
+            throws IOException {
+        boardWidth = board.getWidth();
+        boardHeight = board.getHeight();
+        ruleSet = board.getRuleSet();
+        neighborhood = board.getNeighborhood();
+        if (tilesAcross < 1 || tilesAcross > boardWidth
+                || tilesDown < 1 || tilesDown > boardHeight) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot split a %dx%d board into %dx%d tiles",
+                            boardWidth, boardHeight, tilesAcross, tilesDown));
+        }
+
+        tileX = partition(boardWidth, tilesAcross);
+        tileY = partition(boardHeight, tilesDown);
+        columnTile = owners(tileX);
+        rowTile = owners(tileY);
+
+        sockets = new Socket[tilesAcross][tilesDown];
+        inputs = new DataInputStream[tilesAcross][tilesDown];
+        outputs = new DataOutputStream[tilesAcross][tilesDown];
+        edges = new boolean[tilesAcross][tilesDown][][];
+
+        try {
+            startWorkers(board);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Split a length into near-equal parts.
+     * @return The start of each part, followed by the total length.
+     */
+    private static int[] partition(int length, int parts) {
+        int[] starts = new int[parts + 1];
+        for (int i = 0; i <= parts; i++) {
+            starts[i] = (int) ((long) length * i / parts);
+        }
+        return starts;
+    }
+
+    /**
+     * Compute which part owns each position of a partition.
+     */
+    private static int[] owners(int[] starts) {
+        int[] owner = new int[starts[starts.length - 1]];
+        for (int i = 0; i < starts.length - 1; i++) {
+            for (int p = starts[i]; p < starts[i + 1]; p++) {
+                owner[p] = i;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * Launch one worker JVM per tile, connect to each and send its tile.
+     */
+    private void startWorkers(GameBoard board) throws IOException {
+        int across = tileX.length - 1;
+        int down = tileY.length - 1;
+
+        ServerSocket server = new ServerSocket(0, across * down,
+                InetAddress.getByName(null));
+        try {
+            server.setSoTimeout(CONNECT_TIMEOUT);
+            String java = System.getProperty("java.home")
+                    + File.separator + "bin" + File.separator + "java";
+            for (int i = 0; i < across * down; i++) {
+                ProcessBuilder pb = new ProcessBuilder(java,
+                        "-cp", System.getProperty("java.class.path"),
+                        TileWorker.class.getName(),
+                        Integer.toString(server.getLocalPort()));
+                pb.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+                pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+                processes.add(pb.start());
+            }
+
+            // Workers are interchangeable, so tiles are handed out in the
+            // order the workers connect.
+            for (int ty = 0; ty < down; ty++) {
+                for (int tx = 0; tx < across; tx++) {
+                    Socket s;
+                    try {
+                        s = server.accept();
+                    } catch (SocketTimeoutException e) {
+                        throw new IOException("Timed out waiting for workers", e);
+                    }
+                    s.setTcpNoDelay(true);
+                    sockets[tx][ty] = s;
+                    inputs[tx][ty] = new DataInputStream(
+                            new BufferedInputStream(s.getInputStream()));
+                    outputs[tx][ty] = new DataOutputStream(
+                            new BufferedOutputStream(s.getOutputStream()));
+                    sendTile(board, tx, ty);
+                }
+            }
+        } finally {
+            server.close();
+        }
+
+        readEdges();
+    }
+
+    /**
+     * Send the rules, neighborhood, size and contents of a tile to its
+     * worker.
+     */
+    private void sendTile(GameBoard board, int tx, int ty) throws IOException {
+        DataOutputStream out = outputs[tx][ty];
+        int x0 = tileX[tx];
+        int y0 = tileY[ty];
+        int w = tileX[tx + 1] - x0;
+        int h = tileY[ty + 1] - y0;
+        out.writeUTF(RuleDescription.describe(ruleSet));
+        out.writeUTF(ruleSet.getName());
+        out.writeUTF(neighborhood.getType().name());
+        out.writeInt(neighborhood.getRadius());
+        out.writeInt(w);
+        out.writeInt(h);
+        boolean[] column = new boolean[h];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                column[y] = board.getCell(x0 + x, y0 + y);
+            }
+            CellPacking.writeBits(out, column);
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the edge cells that every worker sends after a generation.
+     */
+    private void readEdges() throws IOException {
+        for (int tx = 0; tx < tileX.length - 1; tx++) {
+            for (int ty = 0; ty < tileY.length - 1; ty++) {
+                int w = tileX[tx + 1] - tileX[tx];
+                int h = tileY[ty + 1] - tileY[ty];
+                int rows = Math.min(neighborhood.getRadius(), h);
+                int cols = Math.min(neighborhood.getRadius(), w);
+                DataInputStream in = inputs[tx][ty];
+                boolean[][] e = new boolean[4][];
+                e[0] = CellPacking.readBits(in, rows * w);
+                e[1] = CellPacking.readBits(in, rows * w);
+                e[2] = CellPacking.readBits(in, cols * h);
+                e[3] = CellPacking.readBits(in, cols * h);
+                edges[tx][ty] = e;
+            }
+        }
+    }
+
+    /**
+     * Look up a cell from the last set of tile edges.  Only cells within the
+     * neighborhood's radius of the edge of their tile can be looked up, but
+     * those are all a halo needs, as every cell within that distance of one
+     * tile is at least as close to the edge of its own.  Cells outside the
+     * board are dead.
+     */
+    private boolean edgeCell(int x, int y) {
+        if (x < 0 || y < 0 || x >= boardWidth || y >= boardHeight)
+            return false;
+        int tx = columnTile[x];
+        int ty = rowTile[y];
+        int lx = x - tileX[tx];
+        int ly = y - tileY[ty];
+        int w = tileX[tx + 1] - tileX[tx];
+        int h = tileY[ty + 1] - tileY[ty];
+        int rows = Math.min(neighborhood.getRadius(), h);
+        int cols = Math.min(neighborhood.getRadius(), w);
+        boolean[][] e = edges[tx][ty];
+        if (ly < rows) {
+            return e[0][ly * w + lx];
+        } else if (ly >= h - rows) {
+            return e[1][(ly - (h - rows)) * w + lx];
+        } else if (lx < cols) {
+            return e[2][lx * h + ly];
+        } else if (lx >= w - cols) {
+            return e[3][(lx - (w - cols)) * h + ly];
+        }
+        throw new IllegalStateException(
+                String.format("Cell %d,%d is not on the edge of a tile", x, y));
+    }
+
+    /**
+     * Send a tile's worker the halo surrounding its tile.
+     */
+    private void sendHalo(int tx, int ty) throws IOException {
+        int x0 = tileX[tx];
+        int x1 = tileX[tx + 1];
+        int y0 = tileY[ty];
+        int y1 = tileY[ty + 1];
+        int r = neighborhood.getRadius();
+        int span = x1 - x0 + 2 * r;
+        int h = y1 - y0;
+        boolean[] top = new boolean[r * span];
+        boolean[] bottom = new boolean[r * span];
+        boolean[] left = new boolean[r * h];
+        boolean[] right = new boolean[r * h];
+        for (int j = 0; j < r; j++) {
+            for (int i = 0; i < span; i++) {
+                top[j * span + i] = edgeCell(x0 - r + i, y0 - r + j);
+                bottom[j * span + i] = edgeCell(x0 - r + i, y1 + j);
+            }
+        }
+        for (int i = 0; i < r; i++) {
+            for (int y = y0; y < y1; y++) {
+                left[i * h + y - y0] = edgeCell(x0 - r + i, y);
+                right[i * h + y - y0] = edgeCell(x1 + i, y);
+            }
+        }
+        DataOutputStream out = outputs[tx][ty];
+        out.write(TileWorker.CMD_STEP);
+        CellPacking.writeBits(out, top);
+        CellPacking.writeBits(out, bottom);
+        CellPacking.writeBits(out, left);
+        CellPacking.writeBits(out, right);
+        out.flush();
+    }
+
+    /**
+     * Computes the next generation on every tile.  All workers step
+     * concurrently; this returns once every one of them has finished.
+     * @throws IOException If a worker fails.
+     */
+    public void next() throws IOException {
+        for (int tx = 0; tx < tileX.length - 1; tx++) {
+            for (int ty = 0; ty < tileY.length - 1; ty++) {
+                sendHalo(tx, ty);
+            }
+        }
+        readEdges();
+        generation++;
+    }
+
+    /**
+     * Query how many generations have been computed.
+     * @return The generation number
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Collect the current state of every tile into a single board.
+     * @return A new board holding the current generation.
+     * @throws IOException If a worker fails.
+     */
+    public GameBoard gather() throws IOException {
+        for (int tx = 0; tx < tileX.length - 1; tx++) {
+            for (int ty = 0; ty < tileY.length - 1; ty++) {
+                outputs[tx][ty].write(TileWorker.CMD_GATHER);
+                outputs[tx][ty].flush();
+            }
+        }
+
+        GameBoard board = new GameBoard(ruleSet, boardWidth, boardHeight);
+        board.setNeighborhood(neighborhood);
+        for (int tx = 0; tx < tileX.length - 1; tx++) {
+            for (int ty = 0; ty < tileY.length - 1; ty++) {
+                int h = tileY[ty + 1] - tileY[ty];
+                for (int x = tileX[tx]; x < tileX[tx + 1]; x++) {
+                    boolean[] column = CellPacking.readBits(inputs[tx][ty], h);
+                    for (int y = 0; y < h; y++) {
+                        board.setCell(x, tileY[ty] + y, column[y]);
+                    }
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Gather the board and save it to a file.
+     * @param file The file to which to save the board.
+     * @throws IOException If an error occurs.
+     */
+    public void checkpoint(File file) throws IOException {
+        gather().save(file);
+    }
+
+    /**
+     * Stop all the workers and release their connections.
+     */
+    public void close() {
+        for (int tx = 0; tx < sockets.length; tx++) {
+            for (int ty = 0; ty < sockets[tx].length; ty++) {
+                try {
+                    if (outputs[tx][ty] != null) {
+                        outputs[tx][ty].write(TileWorker.CMD_STOP);
+                        outputs[tx][ty].flush();
+                    }
+                    if (sockets[tx][ty] != null)
+                        sockets[tx][ty].close();
+                } catch (IOException e) {
+                    // the worker is already gone; nothing more to do
+                }
+            }
+        }
+        for (Process p : processes) {
+            try {
+                p.waitFor();
+            } catch (InterruptedException e) {
+                p.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+        processes.clear();
+    }
+
+    /**
+     * Run a saved board for a number of generations on local workers.
+     * @param args input file, output file, generations, tiles across, tiles
+     *             down, and optionally a checkpoint interval and a rule.  The
+     *             rule is in B/S notation, e.g. "B36/S23" (isotropic rules
+     *             such as "B2-a/S12" are allowed), or a Larger than Life
+     *             rule such as "R5,C0,M1,S34..58,B34..45,NM"; it defaults to
+     *             Conway's rules.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("usage: TileCoordinator <in> <out> <generations>"
+                    + " <tiles-across> <tiles-down> [checkpoint-interval] [rule]");
+            System.exit(2);
+        }
+        File in = new File(args[0]);
+        File out = new File(args[1]);
+        int generations = Integer.parseInt(args[2]);
+        int across = Integer.parseInt(args[3]);
+        int down = Integer.parseInt(args[4]);
+        int interval = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        RuleSet rules = new Conway();
+        if (args.length > 6) {
+            String rule = args[6];
+            rules = rule.indexOf(',') >= 0
+                    ? new LargerThanLife(rule, rule) : new Isotropic(rule, rule);
+        }
+
+        GameBoard board = new GameBoard(rules, in);
+        if (rules instanceof LargerThanLife)
+            board.setNeighborhood(((LargerThanLife) rules).getNeighborhood());
+        TileCoordinator c = new TileCoordinator(board, across, down);
+        try {
+            for (int i = 0; i < generations; i++) {
+                c.next();
+                if (interval > 0 && c.getGeneration() % interval == 0) {
+                    c.checkpoint(out);
+                }
+            }
+            c.checkpoint(out);
+        } finally {
+            c.close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package edu.macalester.comp124.life;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Worker process for a tiled, multi-process Life simulation.
+ *
+ * Each worker owns one rectangular tile of a larger board.  It keeps the tile
+ * in an ordinary GameBoard that is larger on every side by the radius of the
+ * neighborhood; that outer ring (the halo) is filled in from the neighboring
+ * tiles before every generation, so the existing stepping logic computes the
+ * interior exactly as it would on the whole board.  Workers are started and
+ * driven by a TileCoordinator over a local socket.
+ */
+public class TileWorker {
+
+    /** Command: receive a halo, compute one generation, send back the edge. */
+    static final int CMD_STEP = 1;
+    /** Command: send back every cell of the tile's interior. */
+    static final int CMD_GATHER = 2;
+    /** Command: shut down the worker. */
+    static final int CMD_STOP = 3;
+
+    /** The tile, including its halo. */
+    private GameBoard tile;
+    /** The width of the halo, the radius of the neighborhood */
+    private int radius;
+    /** The width of the tile's interior */
+    private int width;
+    /** The height of the tile's interior */
+    private int height;
+
+    /**
+     * Entry point for a worker process.
+     * @param args The port on the local host where the coordinator listens.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("usage: TileWorker <coordinator-port>");
+            System.exit(2);
+        }
+        int port = Integer.parseInt(args[0]);
+        Socket socket = new Socket(InetAddress.getByName(null), port);
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            new TileWorker().serve(in, out);
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Receive a tile from the coordinator and process commands until told to
+     * stop.
+     * @param in The stream of commands from the coordinator.
+     * @param out The stream of replies to the coordinator.
+     * @throws IOException If the connection fails.
+     */
+    void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        String description = in.readUTF();
+        String name = in.readUTF();
+        RuleSet rules;
+        try {
+            rules = RuleDescription.create(description, name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        Neighborhood neighborhood;
+        try {
+            neighborhood = new Neighborhood(
+                    Neighborhood.Type.valueOf(in.readUTF()), in.readInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        radius = neighborhood.getRadius();
+        width = in.readInt();
+        height = in.readInt();
+        tile = new GameBoard(rules, width + 2 * radius, height + 2 * radius);
+        tile.setNeighborhood(neighborhood);
+        tile.setCounting(false);
+        for (int x = 0; x < width; x++) {
+            boolean[] column = CellPacking.readBits(in, height);
+            tile.setCells(x + radius, radius, column, 0, height);
+        }
+        writeEdge(out);
+        out.flush();
+
+        while (true) {
+            int cmd = in.read();
+            if (cmd == CMD_STEP) {
+                readHalo(in);
+                tile.next();
+                writeEdge(out);
+            } else if (cmd == CMD_GATHER) {
+                for (int x = 0; x < width; x++) {
+                    boolean[] column = new boolean[height];
+                    for (int y = 0; y < height; y++) {
+                        column[y] = tile.getCell(x + radius, y + radius);
+                    }
+                    CellPacking.writeBits(out, column);
+                }
+            } else if (cmd == CMD_STOP || cmd < 0) {
+                return;
+            } else {
+                throw new IOException(
+                        String.format("Unknown worker command %d", cmd));
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Read the halo around the tile: the rows above and below (including the
+     * corners), then the columns to the left and right.  Each is as deep as
+     * the halo, and sent row by row or column by column.  The halo is written
+     * into the tile a column at a time.
+     */
+    private void readHalo(DataInputStream in) throws IOException {
+        int span = width + 2 * radius;
+        int tall = height + 2 * radius;
+        boolean[] top = CellPacking.readBits(in, radius * span);
+        boolean[] bottom = CellPacking.readBits(in, radius * span);
+        boolean[] left = CellPacking.readBits(in, radius * height);
+        boolean[] right = CellPacking.readBits(in, radius * height);
+        boolean[] column = new boolean[tall];
+        for (int x = 0; x < span; x++) {
+            for (int j = 0; j < radius; j++) {
+                column[j] = top[j * span + x];
+                column[height + radius + j] = bottom[j * span + x];
+            }
+            if (x < radius) {
+                System.arraycopy(left, x * height, column, radius, height);
+                tile.setCells(x, 0, column, 0, tall);
+            } else if (x >= width + radius) {
+                System.arraycopy(right, (x - width - radius) * height,
+                        column, radius, height);
+                tile.setCells(x, 0, column, 0, tall);
+            } else {
+                tile.setCells(x, 0, column, 0, radius);
+                tile.setCells(x, height + radius, column, height + radius, radius);
+            }
+        }
+    }
+
+    /**
+     * Write the outer ring of the tile's interior, as deep as the halo (or
+     * the whole tile, if it is smaller): the top rows, bottom rows, left
+     * columns and right columns.  These are the only cells that the
+     * neighboring tiles need.
+     */
+    private void writeEdge(DataOutputStream out) throws IOException {
+        int rows = Math.min(radius, height);
+        int cols = Math.min(radius, width);
+        boolean[] top = new boolean[rows * width];
+        boolean[] bottom = new boolean[rows * width];
+        boolean[] left = new boolean[cols * height];
+        boolean[] right = new boolean[cols * height];
+        for (int j = 0; j < rows; j++) {
+            for (int x = 0; x < width; x++) {
+                top[j * width + x] = tile.getCell(x + radius, j + radius);
+                bottom[j * width + x] = tile.getCell(x + radius, height - rows + j + radius);
+            }
+        }
+        for (int i = 0; i < cols; i++) {
+            for (int y = 0; y < height; y++) {
+                left[i * height + y] = tile.getCell(i + radius, y + radius);
+                right[i * height + y] = tile.getCell(width - cols + i + radius, y + radius);
+            }
+        }
+        CellPacking.writeBits(out, top);
+        CellPacking.writeBits(out, bottom);
+        CellPacking.writeBits(out, left);
+        CellPacking.writeBits(out, right);
+    }
+}
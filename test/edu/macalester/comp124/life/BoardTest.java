@@ -3,6 +3,14 @@ package edu.macalester.comp124.life;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 /**
@@ -111,5 +119,379 @@ public class BoardTest {
         // 2,2, the lower right corner, should have 2 neighbors
         assertEquals(2, board.countLivingNeighbors(2, 2));
     }
+    
+    /**
+     * Test that advancing several generations at once gives the same board
+     * as stepping one generation at a time, on boards both smaller and
+     * larger than the tiles advance() works on.
+     */
+    @Test
+    public void testAdvance() {
+        int[][] sizes = {{10, 10}, {70, 45}, {150, 131}};
+        int[] generations = {0, 1, 5, 8, 13};
+        for (int[] size : sizes) {
+            for (int n : generations) {
+                GameBoard stepped = TestBoards.random(size[0], size[1], n);
+                GameBoard advanced = TestBoards.random(size[0], size[1], n);
+                for (int i = 0; i < n; i++) {
+                    stepped.next();
+                }
+                advanced.advance(n);
+                for (int x = 0; x < size[0]; x++) {
+                    for (int y = 0; y < size[1]; y++) {
+                        assertEquals(String.format("%dx%d, %d generations, cell %d,%d",
+                                size[0], size[1], n, x, y),
+                                stepped.getCell(x, y), advanced.getCell(x, y));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Test filling and clearing rectangles, including ones hanging off the
+     * edge of the board.
+     */
+    @Test
+    public void testFillRegion() {
+        board.fillRegion(8, -2, 5, 4, true);
+        assertTrue(board.getCell(8, 0));
+        assertTrue(board.getCell(9, 1));
+        assertFalse(board.getCell(9, 2));
+        assertFalse(board.getCell(7, 0));
+        
+        board.fillRegion(0, 0, 10, 10, true);
+        board.fillRegion(2, 3, 4, 5, false);
+        assertTrue(board.getCell(1, 3));
+        assertFalse(board.getCell(2, 3));
+        assertFalse(board.getCell(5, 7));
+        assertTrue(board.getCell(6, 7));
+        assertTrue(board.getCell(5, 8));
+        
+        board.clear();
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                assertFalse(board.getCell(x, y));
+            }
+        }
+    }
+    
+    /**
+     * Test stamping a pattern with each mode.
+     */
+    @Test
+    public void testStamp() {
+        GameBoard pattern = new GameBoard(2, 2);
+        pattern.setCell(0, 0, true);
+        pattern.setCell(1, 1, true);
+        board.setCell(5, 5, true);
+        board.setCell(6, 5, true);
+        
+        board.stamp(pattern, 5, 5, GameBoard.BlitMode.OR);
+        assertTrue(board.getCell(5, 5));
+        assertTrue(board.getCell(6, 5));
+        assertTrue(board.getCell(6, 6));
+        
+        board.stamp(pattern, 5, 5, GameBoard.BlitMode.XOR);
+        assertFalse(board.getCell(5, 5));
+        assertTrue(board.getCell(6, 5));
+        assertFalse(board.getCell(6, 6));
+        
+        board.stamp(pattern, 5, 5, GameBoard.BlitMode.REPLACE);
+        assertTrue(board.getCell(5, 5));
+        assertFalse(board.getCell(6, 5));
+        assertTrue(board.getCell(6, 6));
+        
+        // a pattern hanging off the corner is clipped
+        board.stamp(pattern, -1, -1, GameBoard.BlitMode.REPLACE);
+        assertTrue(board.getCell(0, 0));
+        board.stamp(pattern, 9, 9, GameBoard.BlitMode.REPLACE);
+        assertTrue(board.getCell(9, 9));
+    }
+    
+    /**
+     * Test copying a region onto an overlapping part of the same board, in
+     * both directions.
+     */
+    @Test
+    public void testCopyRegionOverlap() {
+        GameBoard b = TestBoards.random(20, 20, 11);
+        boolean[][] before = new boolean[20][20];
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                before[x][y] = b.getCell(x, y);
+            }
+        }
+        b.copyRegion(2, 3, 10, 10, 5, 6);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                assertEquals(before[x + 2][y + 3], b.getCell(x + 5, y + 6));
+            }
+        }
+        
+        b = TestBoards.random(20, 20, 11);
+        b.copyRegion(5, 6, 10, 10, 2, 3);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                assertEquals(before[x + 5][y + 6], b.getCell(x + 2, y + 3));
+            }
+        }
+        
+        b = TestBoards.random(20, 20, 11);
+        b.blit(b, 2, 3, 10, 10, 5, 6, GameBoard.BlitMode.XOR);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                assertEquals(before[x + 5][y + 6] ^ before[x + 2][y + 3],
+                        b.getCell(x + 5, y + 6));
+            }
+        }
+    }
+    
+    /**
+     * Test that random fills have about the right density and stay inside
+     * their rectangle.
+     */
+    @Test
+    public void testFillRandom() {
+        double[] densities = {0.0, 0.05, 0.5, 0.8, 1.0};
+        for (double d : densities) {
+            GameBoard b = new GameBoard(200, 200);
+            b.fillRandom(10, 10, 100, 100, d, new Random(1));
+            int alive = 0;
+            for (int x = 0; x < 200; x++) {
+                for (int y = 0; y < 200; y++) {
+                    if (b.getCell(x, y)) {
+                        assertTrue(x >= 10 && x < 110 && y >= 10 && y < 110);
+                        alive++;
+                    }
+                }
+            }
+            assertEquals(d, alive / 10000.0, 0.02);
+        }
+    }
+    
+    /**
+     * Test that a board which is not square survives saving and loading,
+     * and that loading reports its progress by rows.
+     */
+    @Test
+    public void testSaveLoad() throws Exception {
+        File f = File.createTempFile("board", ".life");
+        try {
+            GameBoard b = TestBoards.random(700, 300, 4);
+            b.save(f);
+            final int[] last = new int[2];
+            GameBoard loaded = GameBoard.load(new Conway(), f, new ProgressListener() {
+                public void progress(int done, int total) {
+                    assertTrue(done > last[0]);
+                    last[0] = done;
+                    last[1] = total;
+                }
+            });
+            assertEquals(300, last[0]);
+            assertEquals(300, last[1]);
+            assertEquals(700, loaded.getWidth());
+            assertEquals(300, loaded.getHeight());
+            for (int x = 0; x < 700; x++) {
+                for (int y = 0; y < 300; y++) {
+                    assertEquals(b.getCell(x, y), loaded.getCell(x, y));
+                }
+            }
+        } finally {
+            f.delete();
+        }
+    }
+    
+    /**
+     * Test that damaged board files are rejected.
+     */
+    @Test
+    public void testLoadInvalid() throws Exception {
+        File f = File.createTempFile("board", ".life");
+        try {
+            TestBoards.random(20, 10, 1).save(f);
+            RandomAccessFile raf = new RandomAccessFile(f, "rw");
+            try {
+                raf.seek(8 + 57);
+                raf.write(7);
+            } finally {
+                raf.close();
+            }
+            try {
+                GameBoard.load(new Conway(), f, null);
+                fail("Invalid cell not detected");
+            } catch (InvalidBoardException e) {
+                // expected
+            }
+            
+            raf = new RandomAccessFile(f, "rw");
+            try {
+                raf.setLength(100);
+            } finally {
+                raf.close();
+            }
+            try {
+                new GameBoard(new Conway(), f);
+                fail("Truncated file not detected");
+            } catch (IOException e) {
+                assertTrue(e.getCause() instanceof InvalidBoardException);
+            }
+        } finally {
+            f.delete();
+        }
+    }
+    
+    /**
+     * Test that interrupting a save leaves the existing file alone.
+     */
+    @Test
+    public void testSaveInterrupted() throws Exception {
+        File f = File.createTempFile("board", ".life");
+        try {
+            GameBoard small = TestBoards.random(10, 10, 2);
+            small.save(f);
+            Thread.currentThread().interrupt();
+            try {
+                TestBoards.random(400, 400, 3).save(f, null);
+                fail("Save not interrupted");
+            } catch (InterruptedIOException e) {
+                // expected
+            } finally {
+                Thread.interrupted();
+            }
+            assertEquals(10, GameBoard.load(new Conway(), f, null).getWidth());
+            assertFalse(new File(f.getPath() + ".tmp").exists());
+        } finally {
+            f.delete();
+        }
+    }
+    
+    /**
+     * Check a board's statistics against a scan of its cells and the cells
+     * before its last step.
+     */
+    private static void checkStatistics(GameBoard b, boolean[][] before) {
+        if (!b.isCounting())
+            before = null;
+        long pop = 0, born = 0, died = 0;
+        int x0 = Integer.MAX_VALUE, x1 = -1, y0 = Integer.MAX_VALUE, y1 = -1;
+        for (int x = 0; x < b.getWidth(); x++) {
+            for (int y = 0; y < b.getHeight(); y++) {
+                boolean alive = b.getCell(x, y);
+                if (alive) {
+                    pop++;
+                    x0 = Math.min(x0, x);
+                    x1 = Math.max(x1, x);
+                    y0 = Math.min(y0, y);
+                    y1 = Math.max(y1, y);
+                }
+                if (before != null) {
+                    if (alive && !before[x][y])
+                        born++;
+                    if (!alive && before[x][y])
+                        died++;
+                }
+            }
+        }
+        String gen = "generation " + b.getGeneration();
+        assertEquals(gen, pop, b.getPopulation());
+        if (before != null) {
+            assertEquals(gen, born, b.getBirths());
+            assertEquals(gen, died, b.getDeaths());
+        }
+        if (pop == 0) {
+            assertTrue(gen, b.getBoundingBox() == null);
+        } else {
+            assertEquals(gen, new Rectangle(x0, y0, x1 - x0 + 1, y1 - y0 + 1),
+                    b.getBoundingBox());
+        }
+    }
+    
+    private static boolean[][] cells(GameBoard b) {
+        boolean[][] c = new boolean[b.getWidth()][b.getHeight()];
+        for (int x = 0; x < b.getWidth(); x++) {
+            for (int y = 0; y < b.getHeight(); y++) {
+                c[x][y] = b.getCell(x, y);
+            }
+        }
+        return c;
+    }
+    
+    /**
+     * Test that the population, births, deaths and bounding box are kept up
+     * to date through steps and edits, whether the engine counts cells or
+     * not, and that skipping the dead margins does not change the result.
+     */
+    @Test
+    public void testStatistics() {
+        ReferenceEngine reference = new ReferenceEngine();
+        RuleSet[] rules = { new Conway(), new Isotropic("B0", "B017/S1") };
+        for (int mode = 0; mode < 6; mode++) {
+            RuleSet r = rules[mode % 2];
+            GameBoard b = new GameBoard(r, 120, 90);
+            if (mode / 2 == 1)
+                b.setEngine(new ReferenceEngine());
+            if (mode / 2 == 2)
+                b.setCounting(false);
+            checkStatistics(b, null);
+            b.fillRandom(30, 20, 15, 12, 0.4, new Random(5));
+            checkStatistics(b, null);
+            for (int i = 0; i < 60; i++) {
+                boolean[][] before = cells(b);
+                boolean[][] expected = new boolean[120][90];
+                int k;
+                if (i % 3 == 0) {
+                    k = 5;
+                    b.advance(k);
+                } else {
+                    k = 1;
+                    b.next();
+                }
+                boolean[][] from = before;
+                for (int g = 0; g < k; g++) {
+                    reference.step(from, expected, 120, 90, r, Neighborhood.MOORE, 1);
+                    from = expected;
+                    expected = new boolean[120][90];
+                }
+                assertTrue(Arrays.deepEquals(from, cells(b)));
+                if (k == 1)
+                    checkStatistics(b, before);
+                else
+                    checkStatistics(b, null);
+                
+                // edits keep the statistics too
+                b.setCell(i, i % 90, !b.getCell(i, i % 90));
+                checkStatistics(b, null);
+                boolean[] run = new boolean[12];
+                for (int j = 0; j < run.length; j++) {
+                    run[j] = (i + j) % 3 == 0;
+                }
+                b.setCells((i * 7) % 120, (i * 5) % 80, run, 2, 10);
+                checkStatistics(b, null);
+                if (i == 30) {
+                    b.fillRegion(0, 0, 120, 40, false);
+                    checkStatistics(b, null);
+                }
+            }
+        }
+        
+        GameBoard dead = new GameBoard(50, 50);
+        dead.setCell(10, 10, true);
+        dead.next();
+        assertEquals(0, dead.getPopulation());
+        assertEquals(1, dead.getDeaths());
+        dead.advance(10);
+        assertEquals(11, dead.getGeneration());
+        assertNull(dead.getBoundingBox());
+        
+        dead.setCounting(false);
+        dead.next();
+        try {
+            dead.getBirths();
+            fail("Births counted without counting");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
 }
 
@@ -0,0 +1,99 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for counting the objects on a board.
+ */
+public class CensusTest {
+
+    /**
+     * Place a pattern on a board, written as rows separated by '/'.
+     */
+    private static void place(GameBoard b, int x0, int y0, String pattern) {
+        String[] rows = pattern.split("/");
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < rows[y].length(); x++) {
+                if (rows[y].charAt(x) == 'O')
+                    b.setCell(x0 + x, y0 + y, true);
+            }
+        }
+    }
+
+    /**
+     * Test that known objects are recognized in any orientation and phase,
+     * and unknown ones are counted by their canonical code.
+     */
+    @Test
+    public void testClassify() {
+        GameBoard b = new GameBoard(60, 20);
+        place(b, 1, 1, "OO/OO");
+        place(b, 45, 15, "OO/OO");
+        place(b, 6, 1, ".OO./O..O/.OO.");
+        place(b, 12, 1, "OOO");
+        place(b, 12, 5, "O/O/O");
+        // a glider, reflected, in a later phase
+        place(b, 18, 1, "O.O/OO./.O.");
+        // a boat, rotated
+        place(b, 24, 1, ".O./O.O/.OO");
+        place(b, 30, 1, "O");
+        place(b, 30, 10, "OO.O/O.OO");
+        // an L-tromino; two of them in different orientations
+        place(b, 36, 1, "OO/O.");
+        place(b, 36, 10, ".O/OO");
+
+        Map<String, Integer> counts = Census.standard().count(b);
+        assertEquals(Integer.valueOf(2), counts.get("block"));
+        assertEquals(Integer.valueOf(1), counts.get("beehive"));
+        assertEquals(Integer.valueOf(2), counts.get("blinker"));
+        assertEquals(Integer.valueOf(1), counts.get("glider"));
+        assertEquals(Integer.valueOf(1), counts.get("boat"));
+        assertEquals(Integer.valueOf(1), counts.get("snake"));
+        assertEquals(Integer.valueOf(1), counts.get("?1x1:8"));
+        assertEquals(Integer.valueOf(2), counts.get("?2x2:7"));
+        assertEquals(8, counts.size());
+    }
+
+    /**
+     * Test that objects are joined diagonally and across the strips that
+     * threads scan, by comparing one thread with several on the ash of a
+     * soup.
+     */
+    @Test
+    public void testThreadsAgree() {
+        GameBoard b = new GameBoard(301, 200);
+        b.fillRandom(0.4, new Random(11));
+        b.advance(300);
+
+        Census one = Census.standard();
+        one.setThreads(1);
+        Census many = Census.standard();
+        many.setThreads(7);
+        Map<String, Integer> expected = one.count(b);
+        assertEquals(expected, many.count(b));
+
+        for (Map.Entry<String, Integer> e : expected.entrySet()) {
+            assertTrue(e.getValue() > 0);
+        }
+        // a diagonal line is a single object
+        GameBoard d = new GameBoard(50, 50);
+        for (int i = 0; i < 50; i++) {
+            d.setCell(i, i, true);
+        }
+        assertEquals(1, many.count(d).size());
+        assertEquals(Integer.valueOf(1), many.count(d).values().iterator().next());
+    }
+
+    /**
+     * Test that a pattern which is not periodic is refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadObject() {
+        new Census(new Conway()).addObject("not a blinker", "OO", 2);
+    }
+}
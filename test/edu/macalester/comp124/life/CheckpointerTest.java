@@ -0,0 +1,223 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for snapshots and checkpointing.
+ */
+public class CheckpointerTest {
+
+    private File dir;
+    private GameBoard board;
+
+    /**
+     * Create an empty scratch directory and a random board for each test.
+     */
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("life-checkpoint", "");
+        dir.delete();
+        dir.mkdir();
+        board = new GameBoard(30, 20);
+        board.fillRandom(0.4, new Random(9));
+    }
+
+    /**
+     * Check that a board holds the same cells as a snapshot.
+     */
+    private static void assertSameCells(BoardSnapshot expected, GameBoard actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                assertEquals(String.format("cell %d,%d", x, y),
+                        expected.getCell(x, y), actual.getCell(x, y));
+            }
+        }
+    }
+
+    /**
+     * Test that a snapshot does not change when the board is stepped or
+     * edited afterwards.
+     */
+    @Test
+    public void testSnapshotIsolation() {
+        BoardSnapshot snap = board.snapshot();
+        GameBoard copy = snap.toBoard();
+        board.next();
+        board.next();
+        board.setCell(0, 0, !board.getCell(0, 0));
+        board.fillRegion(0, 0, 5, 5, true);
+        assertSameCells(snap, copy);
+        assertEquals(0, snap.getGeneration());
+        assertEquals(2, board.getGeneration());
+
+        // the board itself must also be unaffected by the snapshot
+        BoardSnapshot snap2 = board.snapshot();
+        board.advance(10);
+        GameBoard expected = snap2.toBoard();
+        expected.advance(10);
+        assertSameCells(board.snapshot(), expected);
+    }
+
+    /**
+     * Test periodic checkpoints, pruning, and resuming from the newest one.
+     */
+    @Test
+    public void testCheckpointAndResume() throws IOException {
+        Checkpointer cp = new Checkpointer(dir, "run", 2);
+        cp.setInterval(5);
+        BoardSnapshot at20 = null;
+        for (int i = 0; i < 23; i++) {
+            board.next();
+            if (board.getGeneration() == 20)
+                at20 = board.snapshot();
+            cp.maybeCheckpoint(board);
+            cp.flush();
+        }
+        cp.close();
+
+        File[] files = cp.list();
+        assertEquals(2, files.length);
+        assertTrue(files[0].getName().endsWith("20.ckpt"));
+        assertTrue(files[1].getName().endsWith("15.ckpt"));
+
+        GameBoard resumed = new Checkpointer(dir, "run", 2).resume();
+        assertNotNull(resumed);
+        assertEquals(20, resumed.getGeneration());
+        assertEquals("Conway's Rules", resumed.getRuleSet().getName());
+        assertSameCells(at20, resumed);
+    }
+
+    /**
+     * Test that a damaged checkpoint is skipped in favor of an older one.
+     */
+    @Test
+    public void testDamagedCheckpoint() throws IOException {
+        Checkpointer cp = new Checkpointer(dir, "run", 3);
+        cp.checkpoint(board);
+        board.advance(4);
+        cp.checkpoint(board);
+        cp.close();
+
+        File newest = cp.list()[0];
+        RandomAccessFile f = new RandomAccessFile(newest, "rw");
+        try {
+            f.seek(f.length() - 12);
+            f.write(f.read() ^ 0xff);
+        } finally {
+            f.close();
+        }
+
+        GameBoard resumed = cp.resume();
+        assertEquals(0, resumed.getGeneration());
+    }
+
+    /**
+     * Test that resuming with the wrong rule set is refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongRules() throws IOException {
+        Checkpointer cp = new Checkpointer(dir, "run", 1);
+        cp.checkpoint(board);
+        cp.close();
+        cp.resume(LargerThanLife.bosco());
+    }
+
+    /**
+     * Test that rule sets with parameters are resumed from the recorded rule,
+     * and that a rule set with the same name but different rules is refused.
+     */
+    @Test
+    public void testRuleDescription() throws IOException {
+        GameBoard iso = new GameBoard(new Isotropic("HighLife", "B36/S23"), 30, 20);
+        iso.fillRandom(0.4, new Random(3));
+        iso.advance(3);
+        Checkpointer cp = new Checkpointer(dir, "iso", 1);
+        cp.checkpoint(iso);
+        cp.close();
+
+        GameBoard resumed = cp.resume();
+        assertTrue(resumed.getRuleSet() instanceof Isotropic);
+        assertEquals("HighLife", resumed.getRuleSet().getName());
+        assertEquals("B36/S23", ((Isotropic) resumed.getRuleSet()).getRule());
+        iso.advance(5);
+        resumed.advance(5);
+        assertSameCells(iso.snapshot(), resumed);
+
+        assertNotNull(cp.resume(new Isotropic("Another name", "B36/S23")));
+        try {
+            cp.resume(new Isotropic("HighLife", "B3/S23"));
+            fail("resumed HighLife with Conway's rules");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that runs sharing a directory, one named with a prefix of the
+     * other's name, neither list, resume nor prune each other's checkpoints.
+     */
+    @Test
+    public void testSharedDirectory() throws IOException {
+        GameBoard other = new GameBoard(30, 20);
+        other.fillRandom(0.2, new Random(10));
+        other.setGeneration(12);
+        Checkpointer cpOther = new Checkpointer(dir, "soup-b", 1);
+        cpOther.checkpoint(other);
+        cpOther.close();
+
+        Checkpointer cp = new Checkpointer(dir, "soup", 1);
+        cp.checkpoint(board);
+        board.next();
+        cp.checkpoint(board);
+        cp.close();
+
+        File[] files = cp.list();
+        assertEquals(1, files.length);
+        assertEquals("soup-00000000000000000001.ckpt", files[0].getName());
+        assertEquals(1, cpOther.list().length);
+        assertEquals(1, cp.resume().getGeneration());
+
+        assertEquals(12, cpOther.resume().getGeneration());
+    }
+
+    /**
+     * Test that there is nothing to resume in an empty directory.
+     */
+    @Test
+    public void testNothingToResume() throws IOException {
+        assertNull(new Checkpointer(dir, "run", 1).resume());
+    }
+
+    /**
+     * Test that a checkpoint which fails part way through leaves no
+     * temporary file behind.
+     */
+    @Test
+    public void testFailedWrite() throws IOException {
+        GameBoard broken = new GameBoard(new Conway() {
+            public String getName() {
+                throw new IllegalStateException("No name");
+            }
+        }, 5, 5);
+        BoardSnapshot snap = broken.snapshot();
+        try {
+            Checkpointer.write(snap, new File(dir, "run-broken.ckpt"));
+            fail("Wrote a rule set with no name");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            snap.release();
+        }
+        assertEquals(0, dir.list().length);
+    }
+}
@@ -0,0 +1,119 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for the stepping engines and the policy choosing among them.
+ */
+public class EngineTest {
+
+    /**
+     * Test that the built-in engines are found through ServiceLoader.
+     */
+    @Test
+    public void testRegistered() {
+        List<String> names = new ArrayList<String>();
+        for (LifeEngine e : new EnginePolicy().getEngines()) {
+            names.add(e.getName());
+        }
+        assertTrue(names.contains("Table"));
+        assertTrue(names.contains("Sparse"));
+        assertTrue(names.contains("Large neighborhood"));
+        assertTrue(names.contains("Reference"));
+    }
+
+    /**
+     * Test that each policy has engines of its own, so that two boards never
+     * share an engine's caches.
+     */
+    @Test
+    public void testEnginesNotShared() {
+        List<LifeEngine> a = new EnginePolicy().getEngines();
+        List<LifeEngine> b = new EnginePolicy().getEngines();
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i).getClass(), b.get(i).getClass());
+            assertTrue(a.get(i) != b.get(i));
+        }
+
+        List<Class<? extends LifeEngine>> classes =
+                new ArrayList<Class<? extends LifeEngine>>();
+        classes.add(TableEngine.class);
+        classes.add(SparseEngine.class);
+        LifeEngine c = new EnginePolicy(classes).getEngines().get(1);
+        LifeEngine d = new EnginePolicy(classes).getEngines().get(1);
+        assertEquals(SparseEngine.class, c.getClass());
+        assertTrue(c != d);
+    }
+
+    /**
+     * Test that every engine steps a board exactly as the reference engine
+     * does, at both a dense and a sparse density.
+     */
+    @Test
+    public void testEnginesAgree() {
+        for (double density : new double[] {0.4, 0.03}) {
+            for (LifeEngine e : new EnginePolicy().getEngines()) {
+                GameBoard expected = new GameBoard(70, 45);
+                expected.fillRandom(density, new Random(5));
+                expected.setEngine(new ReferenceEngine());
+                GameBoard actual = new GameBoard(70, 45);
+                actual.fillRandom(density, new Random(5));
+                actual.setEngine(e);
+                for (int g = 0; g < 30; g++) {
+                    expected.next();
+                    actual.next();
+                }
+                for (int x = 0; x < 70; x++) {
+                    for (int y = 0; y < 45; y++) {
+                        assertEquals(String.format("%s at %d,%d", e.getName(), x, y),
+                                expected.getCell(x, y), actual.getCell(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that the board moves to the sparse engine once a dense board has
+     * died down, without any edits to tell it to.
+     */
+    @Test
+    public void testSwitchesMidRun() {
+        GameBoard board = new GameBoard(200, 200);
+        board.fillRandom(0.9, new Random(3));
+        assertEquals("Table", board.getEngine().getName());
+        board.advance(EnginePolicy.DEFAULT_INTERVAL);
+        assertEquals("Sparse", board.getEngine().getName());
+    }
+
+    /**
+     * Test that the choice follows the neighborhood and rules.
+     */
+    @Test
+    public void testCapabilities() {
+        GameBoard board = new GameBoard(50, 50);
+        board.setNeighborhood(Neighborhood.vonNeumann(2));
+        assertEquals("Large neighborhood", board.getEngine().getName());
+
+        // B0 rules cannot leave empty space unvisited
+        board = new GameBoard(new Isotropic("B0", "B0/S8"), 50, 50);
+        assertEquals("Table", board.getEngine().getName());
+    }
+
+    /**
+     * Test that forcing an engine which cannot run the rules is refused.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupportedEngine() {
+        GameBoard board = new GameBoard(20, 20);
+        board.setNeighborhood(Neighborhood.moore(2));
+        board.setEngine(new TableEngine());
+    }
+}
@@ -0,0 +1,105 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for cross-checking the engines against the reference engine.
+ */
+public class EngineVerifierTest {
+
+    /**
+     * An engine which gets the bottom-right corner of the board wrong.
+     */
+    public static class CornerEngine extends TableEngine {
+        public String getName() {
+            return "Corner";
+        }
+
+        public int step(boolean[][] src, boolean[][] dst, int width, int height,
+                RuleSet rules, Neighborhood neighborhood, int generations) {
+            int k = super.step(src, dst, width, height, rules, neighborhood, generations);
+            dst[width - 1][height - 1] = false;
+            return k;
+        }
+    }
+
+    /**
+     * An engine which steps the cells correctly but tells the board one
+     * more living cell than there is.
+     */
+    public static class MiscountEngine extends TableEngine {
+        public String getName() {
+            return "Miscount";
+        }
+
+        public int step(boolean[][] src, boolean[][] dst, int width, int height,
+                RuleSet rules, Neighborhood neighborhood, int generations,
+                int[] living, int[] changed) {
+            int k = super.step(src, dst, width, height, rules, neighborhood,
+                    generations, living, changed);
+            if (living != null)
+                living[0]++;
+            return k;
+        }
+    }
+
+    /**
+     * Test that the registered engines agree with the reference engine on a
+     * thousand random cases.
+     */
+    @Test
+    public void testEnginesAgree() {
+        EngineVerifier verifier = new EngineVerifier();
+        verifier.setMaxSize(50);
+        List<EngineVerifier.Mismatch> found = verifier.run(0, 1000);
+        assertTrue(found.isEmpty() ? "" : found.get(0).toString(), found.isEmpty());
+    }
+
+    /**
+     * Test that a broken engine is caught and its failure shrunk to a tiny
+     * board.
+     */
+    @Test
+    public void testShrinks() {
+        EngineVerifier verifier = new EngineVerifier(
+                Collections.<LifeEngine>singletonList(new CornerEngine()));
+        List<EngineVerifier.Mismatch> found = verifier.run(0, 50);
+        assertFalse(found.isEmpty());
+        for (EngineVerifier.Mismatch m : found) {
+            EngineVerifier.Case c = m.getShrunk();
+            assertEquals("Corner", m.getEngine());
+            assertEquals(c.getWidth() - 1, m.getX());
+            assertEquals(c.getHeight() - 1, m.getY());
+            // the case stops at the generation that differs
+            assertEquals(c.getGenerations(), m.getGeneration());
+            assertTrue(m.getGeneration() <= m.getOriginal().getGenerations());
+            assertTrue(m.toString(), c.getWidth() * c.getHeight() <= 9);
+            assertTrue(m.toString(), c.getPopulation() <= 3);
+        }
+    }
+
+    /**
+     * Test that an engine whose cells are right but whose counts are wrong
+     * is caught on a board, and shrunk to a tiny board.
+     */
+    @Test
+    public void testBoardStatistics() {
+        EngineVerifier verifier = new EngineVerifier(
+                Collections.<LifeEngine>singletonList(new MiscountEngine()));
+        List<EngineVerifier.Mismatch> found = verifier.run(0, 50);
+        assertFalse(found.isEmpty());
+        for (EngineVerifier.Mismatch m : found) {
+            EngineVerifier.Case c = m.getShrunk();
+            assertTrue(m.toString(), m.isOnBoard());
+            assertEquals("population", m.getStatistic());
+            assertEquals(-1, m.getX());
+            assertTrue(m.toString(), c.getPopulation() <= 1);
+            assertTrue(m.toString(), c.getWidth() * c.getHeight() <= 4);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for streaming a board to viewers.
+ */
+public class FrameServerTest {
+
+    /**
+     * Read frames until a generation is reached, checking each one against a
+     * copy of the board run alongside.
+     * @return The number of frames read.
+     */
+    private static int follow(FrameClient client, GameBoard expected, long last)
+            throws IOException {
+        int frames = 0;
+        while (expected.getGeneration() < last) {
+            assertTrue(client.readFrame());
+            GameBoard b = client.getBoard();
+            long gen = b.getGeneration();
+            assertTrue(gen >= expected.getGeneration());
+            expected.advance((int) (gen - expected.getGeneration()));
+            for (int x = 0; x < b.getWidth(); x++) {
+                for (int y = 0; y < b.getHeight(); y++) {
+                    if (b.getCell(x, y) != expected.getCell(x, y))
+                        fail(String.format("cell (%d,%d) wrong at generation %d", x, y, gen));
+                }
+            }
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * Wait for the server to accept a number of clients.
+     */
+    private static void awaitClients(FrameServer server, int n) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (server.getClientCount() < n) {
+            assertTrue(System.currentTimeMillis() < end);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Test that a client sees the same generations as the board.
+     */
+    @Test
+    public void testStream() throws Exception {
+        GameBoard board = new GameBoard(64, 48);
+        board.fillRandom(0.4, new Random(1));
+        BoardSnapshot start = board.snapshot();
+        GameBoard expected = start.toBoard();
+        start.release();
+
+        final FrameServer server = new FrameServer(board, 0);
+        server.setKeyInterval(8);
+        server.setMaxQueued(1000);
+        server.start();
+        FrameClient client = new FrameClient(server.getPort());
+        awaitClients(server, 1);
+        Thread runner = new Thread() {
+            public void run() {
+                try {
+                    server.run(100);
+                } catch (InterruptedException e) {
+                    // the test fails below
+                }
+            }
+        };
+        runner.start();
+        // nothing is dropped, so every frame arrives
+        assertEquals(101, follow(client, expected, 100));
+        runner.join();
+        assertEquals(0, server.getDropped());
+
+        server.close();
+        assertFalse(client.readFrame());
+        client.close();
+    }
+
+    /**
+     * Test that a client which stops reading does not hold up the board or
+     * the other clients, and picks up from a keyframe when it reads again.
+     */
+    @Test
+    public void testSlowClient() throws Exception {
+        GameBoard board = new GameBoard(200, 200);
+        board.fillRandom(0.3, new Random(2));
+        BoardSnapshot start = board.snapshot();
+        final GameBoard fastExpected = start.toBoard();
+        GameBoard slowExpected = start.toBoard();
+        start.release();
+
+        FrameServer server = new FrameServer(board, 0);
+        server.setKeyInterval(16);
+        server.setMaxQueued(32);
+        server.start();
+        final FrameClient fast = new FrameClient(server.getPort());
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                server.getPort()));
+        FrameClient slow = new FrameClient(socket.getInputStream());
+        awaitClients(server, 2);
+
+        final Throwable[] failure = new Throwable[1];
+        Thread reader = new Thread() {
+            public void run() {
+                try {
+                    follow(fast, fastExpected, 1000);
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            }
+        };
+        reader.start();
+        // the slow client reads nothing until the run is over
+        server.run(1000);
+        reader.join();
+        if (failure[0] != null)
+            throw new AssertionError(failure[0]);
+        assertTrue(server.getDropped() > 0);
+
+        int frames = follow(slow, slowExpected, 1000);
+        assertTrue(frames < 1001);
+        server.close();
+        slow.close();
+        fast.close();
+    }
+
+    /**
+     * Test that the queue limit must stay above the key interval, whichever
+     * is set first.
+     */
+    @Test
+    public void testQueueLimit() throws IOException {
+        FrameServer server = new FrameServer(new GameBoard(10, 10), 0);
+        try {
+            server.setMaxQueued(32);
+            fail("Queue limit at the key interval accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        server.setKeyInterval(8);
+        server.setMaxQueued(9);
+        try {
+            server.setKeyInterval(9);
+            fail("Key interval at the queue limit accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        server.close();
+    }
+}
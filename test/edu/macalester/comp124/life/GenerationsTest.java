@@ -0,0 +1,110 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for Generations rules and the multi-state board.
+ */
+public class GenerationsTest {
+
+    /**
+     * Test the state transitions of Star Wars.
+     */
+    @Test
+    public void testRules() {
+        GenerationsRuleSet rules = Generations.starWars();
+        assertEquals(4, rules.getStateCount());
+        assertEquals(1, rules.applyRules(0, 2));
+        assertEquals(0, rules.applyRules(0, 3));
+        assertEquals(1, rules.applyRules(1, 4));
+        assertEquals(2, rules.applyRules(1, 2));
+        assertEquals(3, rules.applyRules(2, 2));
+        assertEquals(0, rules.applyRules(3, 2));
+    }
+
+    /**
+     * Test that malformed rule strings are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadRule() {
+        new Generations("bad", "23/3");
+    }
+
+    /**
+     * Test that cells are packed and unpacked correctly, including across
+     * word boundaries.
+     */
+    @Test
+    public void testGetSetCell() {
+        GenerationsBoard board = new GenerationsBoard(Generations.starWars(), 3, 70);
+        assertEquals(2, board.getBitsPerCell());
+        for (int y = 0; y < 70; y++) {
+            board.setCell(1, y, y % 4);
+        }
+        for (int y = 0; y < 70; y++) {
+            assertEquals(y % 4, board.getCell(1, y));
+            assertEquals(0, board.getCell(0, y));
+            assertEquals(0, board.getCell(2, y));
+        }
+        try {
+            board.getCell(1, 70);
+            fail("Board index 70 not out of bounds");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test a generation of Brian's Brain: a pair of living cells gives birth
+     * to the cells beside them and starts to die.
+     */
+    @Test
+    public void testBriansBrain() {
+        GenerationsBoard board = new GenerationsBoard(Generations.briansBrain(), 10, 10);
+        board.setCell(5, 5, 1);
+        board.setCell(6, 5, 1);
+        board.next();
+        assertEquals(2, board.getCell(5, 5));
+        assertEquals(2, board.getCell(6, 5));
+        assertEquals(1, board.getCell(5, 4));
+        assertEquals(1, board.getCell(6, 4));
+        assertEquals(1, board.getCell(5, 6));
+        assertEquals(1, board.getCell(6, 6));
+        assertEquals(0, board.getCell(4, 4));
+        board.next();
+        assertEquals(0, board.getCell(5, 5));
+    }
+
+    /**
+     * Test that the two-state Generations rule "23/3/2" behaves exactly like
+     * Conway's rules on a GameBoard.
+     */
+    @Test
+    public void testMatchesConway() {
+        GameBoard life = new GameBoard(20, 70);
+        GenerationsBoard gens = new GenerationsBoard(
+                new Generations("Conway", "23/3/2"), 20, 70);
+        assertEquals(1, gens.getBitsPerCell());
+        Random rng = new Random(7);
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 70; y++) {
+                boolean alive = rng.nextBoolean();
+                life.setCell(x, y, alive);
+                gens.setCell(x, y, alive ? 1 : 0);
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            life.next();
+            gens.next();
+        }
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 70; y++) {
+                assertEquals(life.getCell(x, y) ? 1 : 0, gens.getCell(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for isotropic non-totalistic rules.
+ */
+public class IsotropicTest {
+
+    /**
+     * Test that the shapes are exactly the classes of neighborhoods under
+     * rotation and reflection: every neighborhood has a shape, and two
+     * neighborhoods have the same shape only if one is a transformation of
+     * the other.
+     */
+    @Test
+    public void testShapes() {
+        int[] expected = {1, 2, 6, 10, 13, 10, 6, 2, 1};
+        for (int count = 0; count <= 8; count++) {
+            Set<Integer> shapes = new HashSet<Integer>();
+            for (int p = 0; p < 512; p++) {
+                if ((p & RuleTable.CENTER) != 0 || Integer.bitCount(p) != count)
+                    continue;
+                int shape = Isotropic.shapeOf(p);
+                shapes.add(shape);
+                for (int t = 0; t < 8; t++) {
+                    assertEquals(shape, Isotropic.shapeOf(Isotropic.transform(p, t)));
+                }
+            }
+            assertEquals("shapes with " + count + " neighbors",
+                    expected[count], shapes.size());
+        }
+    }
+
+    /**
+     * Test that "B3/S23" written as an isotropic rule is Conway's rules.
+     */
+    @Test
+    public void testConway() {
+        Isotropic iso = new Isotropic("Conway", "B3/S23");
+        GameBoard a = new GameBoard(new Conway(), 40, 30);
+        GameBoard b = new GameBoard(iso, 40, 30);
+        Random rng = new Random(3);
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 30; y++) {
+                boolean alive = rng.nextBoolean();
+                a.setCell(x, y, alive);
+                b.setCell(x, y, alive);
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            a.next();
+            b.next();
+        }
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 30; y++) {
+                assertEquals(a.getCell(x, y), b.getCell(x, y));
+            }
+        }
+    }
+
+    /**
+     * Test letters and negated letters.
+     */
+    @Test
+    public void testLetters() {
+        Isotropic iso = new Isotropic("test", "B2-a/S1e");
+        // two adjacent neighbors (N, NE) - excluded from birth
+        assertFalse(iso.applyPattern(2 | 4));
+        // two opposite neighbors (N, S) - born
+        assertTrue(iso.applyPattern(2 | 128));
+        // survival with one edge neighbor but not one corner neighbor
+        assertTrue(iso.applyPattern(RuleTable.CENTER | 8));
+        assertFalse(iso.applyPattern(RuleTable.CENTER | 256));
+        // no survival with two
+        assertFalse(iso.applyPattern(RuleTable.CENTER | 2 | 128));
+    }
+
+    /**
+     * Test that a pattern rule drives the board: under "B2a/S" a horizontal
+     * pair of cells dies and gives birth to the pairs above and below it,
+     * each of whose cells sees two adjacent neighbors.  The cells diagonally
+     * beyond the pair see only one neighbor and stay dead.
+     */
+    @Test
+    public void testBoard() {
+        GameBoard board = new GameBoard(new Isotropic("test", "B2a/S"), 5, 5);
+        board.setCell(1, 1, true);
+        board.setCell(2, 1, true);
+        board.next();
+        String[] expected = {
+            ".XX..",
+            ".....",
+            ".XX..",
+            ".....",
+            "....."
+        };
+        for (int y = 0; y < 5; y++) {
+            for (int x = 0; x < 5; x++) {
+                assertEquals(String.format("cell %d,%d", x, y),
+                        expected[y].charAt(x) == 'X', board.getCell(x, y));
+            }
+        }
+    }
+
+    /**
+     * Test that malformed rules are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadLetter() {
+        new Isotropic("bad", "B1a/S");
+    }
+
+    /**
+     * Test that pattern rules are never applied to a neighbor count: no
+     * engine which counts neighbors will take them, so a board with a large
+     * neighborhood refuses to step rather than calling applyRules().
+     */
+    @Test
+    public void testCountsRejected() {
+        Isotropic iso = new Isotropic("test", "B2-a/S12");
+        try {
+            iso.applyRules(false, 2);
+            fail("applied pattern rules to a count");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertFalse(new LargeNeighborhoodEngine().supports(iso, Neighborhood.moore(2)));
+        assertFalse(new ReferenceEngine().supports(iso, Neighborhood.moore(2)));
+        assertTrue(new ReferenceEngine().supports(iso, Neighborhood.MOORE));
+
+        GameBoard board = new GameBoard(iso, 10, 10);
+        board.setCell(4, 4, true);
+        board.setNeighborhood(Neighborhood.moore(2));
+        try {
+            board.next();
+            fail("stepped pattern rules with a large neighborhood");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for large neighborhoods and their fast counting.
+ */
+public class NeighborhoodTest {
+
+    /**
+     * Test the sizes of the various shapes.
+     */
+    @Test
+    public void testSizes() {
+        assertEquals(8, Neighborhood.MOORE.getSize());
+        assertEquals(24, Neighborhood.moore(2).getSize());
+        assertEquals(440, Neighborhood.moore(10).getSize());
+        assertEquals(4, Neighborhood.vonNeumann(1).getSize());
+        assertEquals(12, Neighborhood.vonNeumann(2).getSize());
+        assertEquals(6, Neighborhood.hexagonal(1).getSize());
+        assertEquals(18, Neighborhood.hexagonal(2).getSize());
+    }
+
+    /**
+     * Test that the sliding counts match counting every cell of the
+     * neighborhood, for each shape and several radii, including radii larger
+     * than the board.  The counter is made for a wider board and used for
+     * that first, so the narrower board reuses tables which are not clean.
+     */
+    @Test
+    public void testCounterMatchesBruteForce() {
+        Neighborhood.Type[] types = Neighborhood.Type.values();
+        int[] radii = {1, 2, 3, 5, 12};
+        for (Neighborhood.Type type : types) {
+            for (int r : radii) {
+                Neighborhood n = new Neighborhood(type, r);
+                GameBoard board = TestBoards.random(17, 11, r * 31 + type.ordinal());
+                board.setNeighborhood(n);
+
+                boolean[][] cells = new boolean[17][11];
+                for (int x = 0; x < 17; x++) {
+                    for (int y = 0; y < 11; y++) {
+                        cells[x][y] = board.getCell(x, y);
+                    }
+                }
+                NeighborhoodCounter counter = new NeighborhoodCounter(n, 25, 11);
+                boolean[][] wide = new boolean[25][11];
+                for (boolean[] column : wide) {
+                    Arrays.fill(column, true);
+                }
+                counter.load(wide, 25);
+                counter.load(cells, 17);
+                int[] counts = new int[17];
+                for (int y = 0; y < 11; y++) {
+                    counter.countRow(y, counts);
+                    for (int x = 0; x < 17; x++) {
+                        int self = cells[x][y] ? 1 : 0;
+                        assertEquals(String.format("%s at %d,%d", n, x, y),
+                                board.countLivingNeighbors(x, y), counts[x] - self);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the radius-1 von Neumann neighborhood on a simple case.
+     */
+    @Test
+    public void testVonNeumann() {
+        GameBoard board = new GameBoard(5, 5);
+        board.setNeighborhood(Neighborhood.vonNeumann(1));
+        board.setCell(1, 1, true);
+        board.setCell(2, 1, true);
+        assertEquals(1, board.countLivingNeighbors(1, 2));
+        assertEquals(1, board.countLivingNeighbors(2, 2));
+        // diagonal to 1,1, so not a neighbor
+        assertEquals(0, board.countLivingNeighbors(0, 2));
+        assertEquals(2, board.countLivingNeighbors(1, 1) + board.countLivingNeighbors(2, 1));
+    }
+
+    /**
+     * Test a few generations of Bosco's Rule against a board stepped with
+     * brute-force counting.
+     */
+    @Test
+    public void testBosco() {
+        LargerThanLife bosco = LargerThanLife.bosco();
+        assertEquals(Neighborhood.moore(5), bosco.getNeighborhood());
+
+        GameBoard board = TestBoards.random(30, 25, 5);
+        board.setRuleSet(bosco);
+        board.setNeighborhood(bosco.getNeighborhood());
+        GameBoard expected = TestBoards.random(30, 25, 5);
+        expected.setNeighborhood(bosco.getNeighborhood());
+
+        for (int i = 0; i < 4; i++) {
+            board.next();
+
+            boolean[][] next = new boolean[30][25];
+            for (int x = 0; x < 30; x++) {
+                for (int y = 0; y < 25; y++) {
+                    next[x][y] = bosco.applyRules(expected.getCell(x, y),
+                            expected.countLivingNeighbors(x, y));
+                }
+            }
+            for (int x = 0; x < 30; x++) {
+                for (int y = 0; y < 25; y++) {
+                    expected.setCell(x, y, next[x][y]);
+                    assertEquals(next[x][y], board.getCell(x, y));
+                }
+            }
+        }
+    }
+}
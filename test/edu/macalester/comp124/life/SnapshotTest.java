@@ -0,0 +1,173 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for reading snapshots of a board while it runs.
+ */
+public class SnapshotTest {
+
+    /** The blinkers on the board are centered every SPACING cells */
+    private static final int SPACING = 5;
+
+    /**
+     * Create a board filled with horizontal blinkers.
+     */
+    private static GameBoard blinkers(int count) {
+        GameBoard b = new GameBoard(count * SPACING, count * SPACING);
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                int cx = i * SPACING + 2;
+                int cy = j * SPACING + 2;
+                b.setCell(cx - 1, cy, true);
+                b.setCell(cx, cy, true);
+                b.setCell(cx + 1, cy, true);
+            }
+        }
+        b.publish();
+        return b;
+    }
+
+    /**
+     * Check that every blinker on a snapshot is in the phase its generation
+     * calls for.
+     * @return null if they are, or a description of the first that is not.
+     */
+    private static String checkBlinkers(BoardSnapshot snap, int count) {
+        boolean horizontal = snap.getGeneration() % 2 == 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                int cx = i * SPACING + 2;
+                int cy = j * SPACING + 2;
+                if (!snap.getCell(cx, cy)
+                        || snap.getCell(cx - 1, cy) != horizontal
+                        || snap.getCell(cx + 1, cy) != horizontal
+                        || snap.getCell(cx, cy - 1) == horizontal
+                        || snap.getCell(cx, cy + 1) == horizontal) {
+                    return String.format("blinker at (%d,%d) wrong at generation %d",
+                            cx, cy, snap.getGeneration());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Test that stepping publishes each generation, but edits are only
+     * published when asked.
+     */
+    @Test
+    public void testPublish() {
+        GameBoard b = new GameBoard(10, 10);
+        b.setCell(1, 1, true);
+        BoardSnapshot s = b.latest();
+        assertFalse(s.getCell(1, 1));
+        s.release();
+
+        b.publish();
+        s = b.latest();
+        assertTrue(s.getCell(1, 1));
+        b.setCell(2, 2, true);
+        // the published cells are copied, not changed
+        assertFalse(s.getCell(2, 2));
+        assertTrue(b.getCell(2, 2));
+        s.release();
+
+        b.next();
+        s = b.latest();
+        assertEquals(1, s.getGeneration());
+        assertFalse(s.getCell(1, 1));
+        s.release();
+
+        b.setRuleSet(new Isotropic("HighLife", "B36/S23"));
+        s = b.snapshot();
+        assertTrue(s.getRuleSet() instanceof Isotropic);
+        s.release();
+    }
+
+    /**
+     * Test that a generation's buffer is reused once released, and not
+     * before.
+     */
+    @Test
+    public void testRecycle() {
+        GameBoard b = blinkers(4);
+        BoardSnapshot held = b.latest();
+        boolean[] column = held.column(0);
+        b.next();
+        b.next();
+        BoardSnapshot s = b.latest();
+        assertNotSame(column, s.column(0));
+        assertNull(checkBlinkers(held, 4));
+        s.release();
+
+        held.release();
+        held.release();
+        b.next();
+        // the board alternates between two buffers once nothing holds them
+        BoardSnapshot first = b.latest();
+        column = first.column(0);
+        first.release();
+        b.next();
+        b.next();
+        s = b.latest();
+        assertSame(column, s.column(0));
+        assertNull(checkBlinkers(s, 4));
+        s.release();
+    }
+
+    /**
+     * Test that readers on other threads only ever see whole generations
+     * while the board is stepped and its buffers reused.
+     */
+    @Test
+    public void testConcurrentReaders() throws InterruptedException {
+        final int count = 30;
+        final GameBoard b = blinkers(count);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final AtomicInteger reads = new AtomicInteger();
+        final Thread stepper = new Thread() {
+            public void run() {
+                for (int i = 0; i < 1800; i++) {
+                    if (i % 3 == 0)
+                        b.advance(3);
+                    else
+                        b.next();
+                }
+            }
+        };
+        Thread[] readers = new Thread[3];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread() {
+                public void run() {
+                    while (stepper.isAlive()) {
+                        BoardSnapshot s = b.latest();
+                        String bad = checkBlinkers(s, count);
+                        s.release();
+                        if (bad != null) {
+                            failure.compareAndSet(null, bad);
+                            return;
+                        }
+                        reads.incrementAndGet();
+                    }
+                }
+            };
+        }
+        stepper.start();
+        for (Thread t : readers) {
+            t.start();
+        }
+        stepper.join();
+        for (Thread t : readers) {
+            t.join();
+        }
+        assertTrue(failure.get(), failure.get() == null);
+        assertTrue(reads.get() > 0);
+        assertEquals(3000, b.getGeneration());
+    }
+}
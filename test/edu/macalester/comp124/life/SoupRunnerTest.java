@@ -0,0 +1,69 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for the soup runner.
+ */
+public class SoupRunnerTest {
+
+    /**
+     * A sink which records the outcome of each soup by seed.
+     */
+    private static class RecordingSink implements SoupSink {
+        Map<Long, String> outcomes = new ConcurrentHashMap<Long, String>();
+
+        public void soupFinished(long seed, GameBoard board, int generation, int period) {
+            StringBuilder cells = new StringBuilder();
+            for (int x = 0; x < board.getWidth(); x++) {
+                for (int y = 0; y < board.getHeight(); y++) {
+                    cells.append(board.getCell(x, y) ? 'X' : '.');
+                }
+            }
+            outcomes.put(seed, generation + "/" + period + "/" + cells);
+        }
+    }
+
+    /**
+     * Test that soups are reproducible from their seeds no matter how many
+     * threads run them.
+     */
+    @Test
+    public void testDeterministic() {
+        RecordingSink serial = new RecordingSink();
+        SoupRunner r1 = new SoupRunner(new Conway(), 16, 16);
+        r1.setThreads(1);
+        r1.setSink(serial);
+        r1.run(100, 40);
+
+        RecordingSink parallel = new RecordingSink();
+        SoupRunner r4 = new SoupRunner(new Conway(), 16, 16);
+        r4.setThreads(4);
+        r4.setSink(parallel);
+        r4.run(100, 40);
+
+        assertEquals(40, serial.outcomes.size());
+        assertEquals(serial.outcomes, parallel.outcomes);
+    }
+
+    /**
+     * Test that a soup which dies out or settles is reported as stable, and
+     * that a full board (which dies immediately) has period 1.
+     */
+    @Test
+    public void testStabilizes() {
+        RecordingSink sink = new RecordingSink();
+        SoupRunner r = new SoupRunner(new Conway(), 8, 8);
+        r.setDensity(1.0);
+        r.setSink(sink);
+        assertEquals(1, r.run(0, 1));
+        // full board -> only the four corners survive -> they die next
+        assertTrue(sink.outcomes.get(0L).startsWith("3/1/"));
+        assertTrue(r.getSoupsPerSecond() > 0);
+    }
+}
@@ -0,0 +1,39 @@
+package edu.macalester.comp124.life;
+
+import java.util.Random;
+
+/**
+ * Boards shared by the test cases.
+ */
+final class TestBoards {
+
+    private TestBoards() {
+    }
+
+    /**
+     * Fill a board with random cells, about a third of them alive.
+     * @param board The board to fill.
+     * @param seed The seed for the random cells.
+     */
+    static void fill(GameBoard board, long seed) {
+        Random rng = new Random(seed);
+        for (int x = 0; x < board.getWidth(); x++) {
+            for (int y = 0; y < board.getHeight(); y++) {
+                board.setCell(x, y, rng.nextInt(3) == 0);
+            }
+        }
+    }
+
+    /**
+     * Create a board filled with random cells, as by fill().
+     * @param w The width of the board.
+     * @param h The height of the board.
+     * @param seed The seed for the random cells.
+     * @return The board.
+     */
+    static GameBoard random(int w, int h, long seed) {
+        GameBoard board = new GameBoard(w, h);
+        fill(board, seed);
+        return board;
+    }
+}
@@ -0,0 +1,77 @@
+package edu.macalester.comp124.life;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for the tiled, multi-process simulation.
+ * These tests start real worker processes on the local machine and check that
+ * the tiled board evolves exactly like a single GameBoard.
+ */
+public class TileCoordinatorTest {
+
+    /**
+     * Run a board and its tiled copy side by side and check that they agree.
+     */
+    private static void checkTiled(GameBoard board, int across, int down,
+            int generations) throws Exception {
+        TileCoordinator tiles = new TileCoordinator(board, across, down);
+        try {
+            for (int i = 0; i < generations; i++) {
+                board.next();
+                tiles.next();
+            }
+            assertEquals(generations, tiles.getGeneration());
+
+            GameBoard gathered = tiles.gather();
+            for (int x = 0; x < board.getWidth(); x++) {
+                for (int y = 0; y < board.getHeight(); y++) {
+                    assertEquals(String.format("cell %d,%d", x, y),
+                            board.getCell(x, y), gathered.getCell(x, y));
+                }
+            }
+        } finally {
+            tiles.close();
+        }
+    }
+
+    /**
+     * Test that a random board split into uneven tiles matches the reference
+     * board after several generations.
+     */
+    @Test
+    public void testMatchesSingleBoard() throws Exception {
+        GameBoard board = new GameBoard(23, 17);
+        TestBoards.fill(board, 42);
+        checkTiled(board, 3, 2, 12);
+    }
+
+    /**
+     * Test that rules which take parameters reach the workers.
+     */
+    @Test
+    public void testIsotropicRules() throws Exception {
+        GameBoard board = new GameBoard(new Isotropic("Test", "B2-a/S12"), 21, 19);
+        TestBoards.fill(board, 7);
+        checkTiled(board, 2, 2, 10);
+    }
+
+    /**
+     * Test that the halo is as wide as a large neighborhood, even when tiles
+     * are narrower than its radius.
+     */
+    @Test
+    public void testLargeNeighborhood() throws Exception {
+        LargerThanLife bosco = LargerThanLife.bosco();
+        GameBoard board = new GameBoard(bosco, 24, 14);
+        board.setNeighborhood(bosco.getNeighborhood());
+        TestBoards.fill(board, 3);
+        checkTiled(board, 5, 3, 8);
+
+        GameBoard hex = new GameBoard(16, 16);
+        hex.setNeighborhood(Neighborhood.hexagonal(2));
+        TestBoards.fill(hex, 4);
+        checkTiled(hex, 3, 3, 8);
+    }
+}